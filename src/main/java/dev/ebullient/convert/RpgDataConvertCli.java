@@ -118,6 +118,30 @@ public class RpgDataConvertCli implements Callable<Integer>, QuarkusApplication
     @Option(names = "--index", description = "Create index of keys that can be used to exclude entries")
     boolean writeIndex;
 
+    @Option(names = "--parallel", description = "Use multiple threads to read and parse input files, and to convert and render notes")
+    boolean parallel;
+
+    @Option(names = "--lazy-sources", description = "Use data index files to skip reading data for sources that are not included")
+    boolean lazySources;
+
+    @Option(names = "--cache", description = "Directory used to cache parsed data files between runs.%n  Entries unused for 30 days are removed.")
+    Path cachePath;
+
+    @Option(names = "--text-cache", description = "Number of rendered text fragments to cache (0 to disable)", defaultValue = "0")
+    int textCacheSize;
+
+    @Option(names = "--write-if-changed", description = "Only write output files whose content has changed")
+    boolean writeIfChanged;
+
+    @Option(names = "--incremental", description = "Only convert entries whose data (or dependencies) changed since the last incremental run.%n"
+            + "  Entries whose content changed are converted again, along with the entries that use them.%n"
+            + "  Adding or removing any included entry (a new data or homebrew file, a new source),%n"
+            + "  or changing configuration or templates, converts all entries again.")
+    boolean incremental;
+
+    @Option(names = "--prune", description = "Remove notes written by the previous run that this run no longer produces (unless they were modified)")
+    boolean prune;
+
     @ArgGroup(exclusive = false)
     TemplatePaths templatePaths = new TemplatePaths();
 
@@ -152,6 +176,13 @@ public class RpgDataConvertCli implements Callable<Integer>, QuarkusApplication
         boolean allOk = true;
         tui.setTemplates(tpl);
         tui.setOutputPath(output);
+        tui.setParallel(parallel);
+        tui.setLazySources(lazySources);
+        tui.setDataCache(cachePath);
+        tui.setTextCacheSize(textCacheSize);
+        tui.setWriteIfChanged(writeIfChanged);
+        tui.setIncremental(incremental);
+        tui.setPrune(prune);
 
         TtrpgConfig.init(tui, game);
         Configurator configurator = new Configurator(tui);
@@ -243,6 +274,8 @@ public class RpgDataConvertCli implements Callable<Integer>, QuarkusApplication
             index.markdownConverter(writer)
                     .writeAll()
                     .writeImages();
+            writer.writeManifest();
+            writer.reportChanges();
 
             tui.printlnf(Msg.ALLDONE, "All done!");
         } catch (Throwable e) {
@@ -1,7 +1,9 @@
 package dev.ebullient.convert.config;
 
 import java.io.IOException;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
@@ -11,6 +13,9 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.BiConsumer;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
@@ -71,14 +76,16 @@ public class CompendiumConfig {
     }
 
     final static Path CWD = Path.of(".");
+    final static Set<String> SRD_SOURCES = Set.of("srd", "basicrules", "srd52", "basicrules2024");
 
     @JsonIgnore
     final Tui tui;
 
     Datasource datasource;
 
+    // Each thread (and each unit of conversion work, see withParseState) has its own parse state
     @JsonIgnore
-    final ParseState parseState = new ParseState();
+    final ThreadLocal<ParseState> parseState = ThreadLocal.withInitial(ParseState::new);
 
     String tagPrefix = "";
     PathAttributes paths;
@@ -91,6 +98,8 @@ public class CompendiumConfig {
     final Set<String> includedGroups = new HashSet<>();
     final Set<String> excludedKeys = new HashSet<>();
     final Set<Pattern> excludedPatterns = new HashSet<>();
+    @JsonIgnore
+    private volatile KeyRules keyRules;
     final Set<String> homebrew = new HashSet<>();
     final Set<String> adventures = new HashSet<>();
     final Set<String> books = new HashSet<>();
@@ -103,8 +112,23 @@ public class CompendiumConfig {
         this.tui = tui;
     }
 
+    /** @return parse state for the conversion work running on this thread */
     public ParseState parseState() {
-        return parseState;
+        return parseState.get();
+    }
+
+    /**
+     * Run a unit of conversion work (one entry, one note) with its own, empty parse state.
+     * The previous parse state of this thread is restored afterwards.
+     */
+    public void withParseState(Runnable work) {
+        ParseState previous = parseState.get();
+        parseState.set(new ParseState());
+        try {
+            work.run();
+        } finally {
+            parseState.set(previous);
+        }
     }
 
     public Tui tui() {
@@ -135,6 +159,32 @@ public class CompendiumConfig {
         return allowedSources.stream().allMatch(sources::contains);
     }
 
+    /**
+     * Sources included by configuration alone (before any data is read):
+     * configured sources, books, adventures, and sources of included keys.
+     *
+     * @return lower-case source names, or empty if inclusion can't be determined
+     *         without reading all data (all sources, SRD or basic rules, groups, or homebrew).
+     */
+    public Optional<Set<String>> configuredSources() {
+        if (allSources || !includedGroups.isEmpty() || !homebrew.isEmpty()) {
+            return Optional.empty();
+        }
+        Set<String> result = new HashSet<>(allowedSources);
+        Stream.concat(books.stream(), adventures.stream())
+                .filter(s -> !s.endsWith(".json"))
+                .map(String::toLowerCase)
+                .forEach(s -> {
+                    result.add(s);
+                    result.add(sourceIdAlias.getOrDefault(s, s));
+                });
+        includedKeys.forEach(k -> result.add(k.substring(k.lastIndexOf('|') + 1)));
+        if (result.isEmpty() || result.stream().anyMatch(SRD_SOURCES::contains)) {
+            return Optional.empty();
+        }
+        return Optional.of(result);
+    }
+
     public boolean readSource(Path p, List<Fix> fixes, BiConsumer<String, JsonNode> callback) {
         return tui.readFile(p, fixes, callback);
     }
@@ -167,14 +217,11 @@ public class CompendiumConfig {
     }
 
     public Optional<Boolean> keyIsIncluded(String key) {
-        if (includedKeys.contains(key)) {
-            return Optional.of(true);
-        }
-        if (excludedKeys.contains(key) ||
-                excludedPatterns.stream().anyMatch(x -> x.matcher(key).matches())) {
-            return Optional.of(false);
+        KeyRules rules = keyRules;
+        if (rules == null) {
+            keyRules = rules = new KeyRules(includedKeys, excludedKeys, excludedPatterns);
         }
-        return Optional.empty();
+        return rules.decide(key);
     }
 
     public boolean groupIsIncluded(String group) {
@@ -243,6 +290,40 @@ public class CompendiumConfig {
         return Collections.unmodifiableCollection(homebrew);
     }
 
+    /**
+     * @return configuration (and custom template content) as text:
+     *         used to detect configuration changes between incremental runs
+     */
+    public String fingerprint() {
+        PathAttributes p = pathAttributes();
+        ImageOptions i = imageOptions();
+        List<String> values = new ArrayList<>(Arrays.asList(
+                String.valueOf(datasource), tagPrefix,
+                p.rulesVaultRoot, p.compendiumVaultRoot,
+                p.rulesFilePath.toString(), p.compendiumFilePath.toString(),
+                i.internalRoot + ";" + i.copyInternal + ";" + i.copyExternal + ";" + new TreeMap<>(i.fallbackPaths),
+                String.valueOf(allSources), String.valueOf(useDiceRoller), String.valueOf(reprintBehavior),
+                new TreeSet<>(allowedSources).toString(),
+                new TreeSet<>(includedKeys).toString(),
+                new TreeSet<>(includedGroups).toString(),
+                new TreeSet<>(excludedKeys).toString(),
+                excludedPatterns.stream().map(Pattern::pattern).sorted().toList().toString(),
+                new TreeSet<>(homebrew).toString(),
+                new TreeSet<>(adventures).toString(),
+                new TreeSet<>(books).toString(),
+                new TreeMap<>(defaultSource).toString(),
+                new TreeMap<>(sourceIdAlias).toString()));
+        for (var e : new TreeMap<>(customTemplates).entrySet()) {
+            values.add(e.getKey());
+            try {
+                values.add(Files.readString(e.getValue()));
+            } catch (IOException ex) {
+                values.add(e.getValue().toString());
+            }
+        }
+        return String.join("\n", values);
+    }
+
     public Path getCustomTemplate(String id) {
         return customTemplates.get(id);
     }
@@ -391,6 +472,7 @@ public class CompendiumConfig {
             input.includeGroup.forEach(s -> config.includedGroups.add(s.toLowerCase()));
             input.exclude.forEach(s -> config.excludedKeys.add(s.toLowerCase()));
             input.excludePattern.forEach(s -> config.addExcludePattern(s.toLowerCase()));
+            config.keyRules = null; // rebuild include/exclude rules on next use
 
             config.allowSources(input.references()); // sources + from
             config.books.addAll(input.sources.book);
@@ -429,6 +511,71 @@ public class CompendiumConfig {
                 .anyMatch((k) -> k.get(node) != null);
     }
 
+    /**
+     * Include/exclude rules compiled for key lookups.
+     * Exclude patterns are grouped by their literal type prefix (e.g. {@code monster\|.*})
+     * and combined into a single alternation per type, so a key is only tested
+     * against patterns that could match it. Decisions are cached per key.
+     */
+    private static class KeyRules {
+        static final Pattern LITERAL_TYPE = Pattern.compile("[a-z0-9-]+");
+
+        final Set<String> included;
+        final Set<String> excluded;
+        final Map<String, Pattern> patternsByType = new HashMap<>();
+        final Pattern anyTypePattern;
+        final Map<String, Optional<Boolean>> decisions = new ConcurrentHashMap<>();
+
+        KeyRules(Set<String> included, Set<String> excluded, Set<Pattern> patterns) {
+            this.included = Set.copyOf(included);
+            this.excluded = Set.copyOf(excluded);
+
+            Map<String, List<String>> byType = new HashMap<>();
+            List<String> anyType = new ArrayList<>();
+            for (Pattern p : patterns) {
+                String source = p.pattern();
+                int pos = source.indexOf("\\|");
+                String type = pos < 0 ? null : source.substring(0, pos);
+                if (type != null && LITERAL_TYPE.matcher(type).matches()) {
+                    byType.computeIfAbsent(type, k -> new ArrayList<>()).add(source);
+                } else {
+                    anyType.add(source);
+                }
+            }
+            byType.forEach((type, sources) -> patternsByType.put(type, combine(sources)));
+            anyTypePattern = combine(anyType);
+        }
+
+        Optional<Boolean> decide(String key) {
+            return decisions.computeIfAbsent(key, this::match);
+        }
+
+        private Optional<Boolean> match(String key) {
+            if (included.contains(key)) {
+                return Optional.of(true);
+            }
+            if (excluded.contains(key)) {
+                return Optional.of(false);
+            }
+            int pos = key.indexOf('|');
+            Pattern typePattern = pos < 0 ? null : patternsByType.get(key.substring(0, pos));
+            if ((typePattern != null && typePattern.matcher(key).matches())
+                    || (anyTypePattern != null && anyTypePattern.matcher(key).matches())) {
+                return Optional.of(false);
+            }
+            return Optional.empty();
+        }
+
+        private static Pattern combine(List<String> sources) {
+            if (sources.isEmpty()) {
+                return null;
+            }
+            return Pattern.compile(sources.stream()
+                    .map(x -> "(?:" + x + ")")
+                    .collect(Collectors.joining("|")));
+        }
+    }
+
     private static class PathAttributes {
         String rulesVaultRoot = "rules/";
         String compendiumVaultRoot = "compendium/";
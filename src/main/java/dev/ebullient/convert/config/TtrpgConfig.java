@@ -12,8 +12,11 @@ import java.util.Map.Entry;
 import java.util.Optional;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Consumer;
+import java.util.regex.Pattern;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.node.NullNode;
@@ -30,7 +33,7 @@ public class TtrpgConfig {
 
     public static final String DEFAULT_IMG_ROOT = "imgRoot";
 
-    static final Set<String> missingSourceName = new HashSet<>();
+    static final Set<String> missingSourceName = ConcurrentHashMap.newKeySet();
 
     private static Datasource datasource;
     private static CompendiumConfig activeConfig = null;
@@ -384,6 +387,18 @@ public class TtrpgConfig {
         public String _comment;
         public String match;
         public String replace;
+
+        // Compiled on first use (fields are set by Jackson); files are parsed concurrently
+        @JsonIgnore
+        private volatile Pattern pattern;
+
+        public String apply(String contents) {
+            Pattern p = pattern;
+            if (p == null) {
+                pattern = p = Pattern.compile(match);
+            }
+            return p.matcher(contents).replaceAll(replace);
+        }
     }
 
     enum ConfigKeys implements JsonNodeReader {
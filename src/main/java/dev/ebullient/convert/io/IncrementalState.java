@@ -0,0 +1,246 @@
+package dev.ebullient.convert.io;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import dev.ebullient.convert.VersionProvider;
+import dev.ebullient.convert.io.MarkdownWriter.FileMap;
+
+/**
+ * State kept between incremental runs ({@code --incremental}).
+ * <p>
+ * For each converted entry, this records the index entries it read
+ * (with a hash of their content) and the files it produced. On the next run,
+ * an entry is skipped if none of its dependencies changed and its files still exist.
+ * </p>
+ * <p>
+ * Lookups that find nothing are dependencies too (recorded as absent), as are
+ * the keys matched by a prefix lookup: a new entry that would change the result
+ * causes the entry to be converted again.
+ * </p>
+ * <p>
+ * Everything else that can change rendered output (tool version, configuration,
+ * templates, the set of included keys, aliases, ...) is folded into
+ * a run fingerprint: if that changes, every entry is converted again.
+ * In particular, adding or removing any included entry converts every entry again:
+ * whether an entry is included is not tracked per dependency.
+ * </p>
+ */
+public class IncrementalState {
+    // Change this if the stored representation changes
+    static final String STATE_VERSION = "2";
+    static final Path STATE_FILE = Path.of(".ttrpg-convert", "incremental.json");
+    static final String ABSENT = "-";
+
+    /**
+     * A file written for an entry.
+     * Rules files and compendium files are listed (in directory index notes) separately.
+     */
+    public record OutputFile(String title, String fileName, String dir, boolean renderIndex, boolean rules) {
+        static OutputFile from(FileMap fileMap, boolean rules) {
+            return new OutputFile(fileMap.title, fileMap.fileName,
+                    fileMap.dir.toString().replace('\\', '/'), fileMap.renderIndex, rules);
+        }
+
+        public FileMap toFileMap() {
+            return FileMap.restore(title, fileName, Path.of(dir), renderIndex);
+        }
+    }
+
+    record Entry(Map<String, String> dependencies, List<OutputFile> files) {
+        Entry {
+            // empty collections are not written to the state file
+            dependencies = dependencies == null ? Map.of() : dependencies;
+            files = files == null ? List.of() : files;
+        }
+    }
+
+    record State(String version, String fingerprint, Map<String, Entry> entries) {
+    }
+
+    record Recording(IncrementalState state, Map<String, String> dependencies) {
+        void add(String key, Function<String, String> hash) {
+            // content does not change during a run: hash each dependency once
+            dependencies.put(key, state.hashes.computeIfAbsent(key, hash));
+        }
+    }
+
+    /** Dependencies recorded (on this thread) while converting an entry */
+    private static final ThreadLocal<Recording> recording = new ThreadLocal<>();
+
+    private final Tui tui;
+    private final Path output;
+    private final String fingerprint;
+    private final Map<String, Entry> previous;
+    private final Map<String, Entry> current = new ConcurrentHashMap<>();
+    private final Map<String, String> hashes = new ConcurrentHashMap<>();
+    private final AtomicInteger skipped = new AtomicInteger();
+
+    IncrementalState(Tui tui, Path output, String fingerprint, Map<String, Entry> previous) {
+        this.tui = tui;
+        this.output = output;
+        this.fingerprint = fingerprint;
+        this.previous = previous;
+    }
+
+    /**
+     * Read state from the previous run. Previous entries are only used
+     * if the run fingerprint is the same.
+     */
+    public static IncrementalState load(Path output, String fingerprint, Tui tui) {
+        Path stateFile = output.resolve(STATE_FILE);
+        Map<String, Entry> previous = Map.of();
+        if (Files.isRegularFile(stateFile)) {
+            try {
+                State state = Tui.MAPPER.readValue(stateFile.toFile(), State.class);
+                if (STATE_VERSION.equals(state.version()) && fingerprint.equals(state.fingerprint())) {
+                    previous = state.entries();
+                } else {
+                    tui.infof(Msg.WRITING,
+                            "Configuration, templates, or the set of included entries changed: converting all entries");
+                }
+            } catch (IOException e) {
+                tui.debugf("Ignoring unreadable incremental state %s: %s", stateFile, e.getMessage());
+            }
+        }
+        return new IncrementalState(tui, output, fingerprint, previous);
+    }
+
+    /**
+     * @param key entry key
+     * @param currentHash hash of the current content for a dependency (see {@link #hash(JsonNode)})
+     * @return files written for this entry by a previous run if it can be skipped, or null if it must be converted
+     */
+    public List<OutputFile> unchanged(String key, Function<String, String> currentHash) {
+        Entry entry = previous.get(key);
+        if (entry == null
+                || !entry.dependencies().entrySet().stream()
+                        .allMatch(e -> e.getValue().equals(hashes.computeIfAbsent(e.getKey(), currentHash)))
+                || !entry.files().stream()
+                        .allMatch(f -> Files.exists(output.resolve(f.dir()).resolve(f.fileName())))) {
+            return null;
+        }
+        current.put(key, entry);
+        skipped.incrementAndGet();
+        return entry.files();
+    }
+
+    /** Start recording dependencies for an entry converted on this thread */
+    public void begin() {
+        recording.set(new Recording(this, new TreeMap<>()));
+    }
+
+    /** Stop recording, and remember dependencies and files (compendium, then rules) for the converted entry */
+    public void end(String key, Collection<FileMap> compendiumFiles, Collection<FileMap> rulesFiles) {
+        Recording r = recording.get();
+        recording.remove();
+        List<OutputFile> files = new ArrayList<>();
+        compendiumFiles.forEach(f -> files.add(OutputFile.from(f, false)));
+        rulesFiles.forEach(f -> files.add(OutputFile.from(f, true)));
+        current.put(key, new Entry(r.dependencies(), files));
+    }
+
+    /** @return true if dependencies are being recorded for an entry converted on this thread */
+    public static boolean isRecording() {
+        return recording.get() != null;
+    }
+
+    /** Note that the entry being converted (if recording) read the given index entry */
+    public static void dependsOn(String key, JsonNode node) {
+        Recording r = recording.get();
+        if (r != null && key != null) {
+            r.add(key, k -> hash(node));
+        }
+    }
+
+    /** Note that the entry being converted (if recording) used derived data (in text form) */
+    public static void dependsOn(String key, String content) {
+        Recording r = recording.get();
+        if (r != null && key != null) {
+            r.add(key, k -> hash(content));
+        }
+    }
+
+    public static String hash(JsonNode node) {
+        return node == null ? ABSENT : hash(node.toString());
+    }
+
+    public static String hash(String content) {
+        if (content == null) {
+            return ABSENT;
+        }
+        return HexFormat.of().formatHex(sha256().digest(content.getBytes(StandardCharsets.UTF_8)), 0, 12);
+    }
+
+    /** @return number of entries skipped (unchanged) in this run */
+    public int skipped() {
+        return skipped.get();
+    }
+
+    public void save() {
+        Path stateFile = output.resolve(STATE_FILE);
+        try {
+            Files.createDirectories(stateFile.getParent());
+            Tui.MAPPER.writeValue(stateFile.toFile(), new State(STATE_VERSION, fingerprint, new TreeMap<>(current)));
+        } catch (IOException e) {
+            tui.errorf(e, "Unable to write incremental state %s: %s", stateFile, e.getMessage());
+        }
+    }
+
+    /** Builds the run fingerprint from (ordered) values */
+    public static class Fingerprint {
+        final MessageDigest digest = sha256();
+
+        public Fingerprint() {
+            add(STATE_VERSION);
+            add(toolVersion());
+        }
+
+        public Fingerprint add(Object value) {
+            digest.update(String.valueOf(value).getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            return this;
+        }
+
+        public Fingerprint addAll(Collection<?> values) {
+            values.forEach(this::add);
+            return this;
+        }
+
+        @Override
+        public String toString() {
+            return HexFormat.of().formatHex(digest.digest());
+        }
+
+        static String toolVersion() {
+            try {
+                return String.join(";", new VersionProvider().getVersion());
+            } catch (RuntimeException e) {
+                return "unknown";
+            }
+        }
+    }
+
+    static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
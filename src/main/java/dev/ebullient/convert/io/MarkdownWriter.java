@@ -7,13 +7,17 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Comparator;
-import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeMap;
 import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.stream.Collectors;
 
 import dev.ebullient.convert.qute.QuteBase;
@@ -31,30 +35,56 @@ public class MarkdownWriter {
     final Tui tui;
     final Templates templates;
     final Path output;
+    final LongAdder written = new LongAdder();
+    final LongAdder unchanged = new LongAdder();
+    final OutputManifest manifest;
 
     public MarkdownWriter(Path output, Templates templates, Tui tui) {
         this.tui = tui;
         this.output = output;
         this.templates = templates;
+        this.manifest = new OutputManifest(output, tui);
+    }
+
+    public Path outputPath() {
+        return output;
+    }
+
+    /** @return the file this note is written to (relative to the output directory) */
+    public static FileMap fileMap(Path basePath, QuteBase qs) {
+        return new FileMap(qs.title(),
+                qs.targetFile(),
+                basePath.resolve(qs.targetPath()).normalize(),
+                qs.createIndex());
     }
 
     public <T extends QuteBase> void writeFiles(Path basePath, List<T> elements) {
-        if (elements.isEmpty()) {
+        writeFiles(basePath, elements, List.of());
+    }
+
+    /**
+     * @param basePath Base path for these notes (compendium or rules)
+     * @param elements Notes to render and write
+     * @param unchanged Files left in place from a previous run (listed in directory index notes)
+     */
+    public <T extends QuteBase> void writeFiles(Path basePath, List<T> elements, Collection<FileMap> unchanged) {
+        if (elements.isEmpty() && unchanged.isEmpty()) {
             return;
         }
 
         // Counts and sorted lists (to write index)
-        Map<String, Integer> counts = new HashMap<>();
+        Map<String, LongAdder> counts = new ConcurrentHashMap<>();
         Set<FileMap> fileMappings = new TreeSet<>(fileSort);
+        fileMappings.addAll(unchanged);
+        for (FileMap fm : unchanged) {
+            manifest.addExisting(output.resolve(fm.dir.toString()).resolve(fm.fileName));
+        }
 
-        // Find duplicates
-        Map<FileMap, List<T>> pathMap = new HashMap<>();
+        // Find duplicates (sorted: conflicts are reported in a stable order)
+        Map<FileMap, List<T>> pathMap = new TreeMap<>(fileSort);
         for (T qs : elements) {
-            Path path = basePath.resolve(qs.targetPath()).normalize();
-            FileMap fileMap = new FileMap(qs.title(),
-                    qs.targetFile(),
-                    path,
-                    qs.createIndex());
+            FileMap fileMap = fileMap(basePath, qs);
+            Path path = fileMap.dir;
 
             pathMap.computeIfAbsent(fileMap, k -> new ArrayList<>()).add(qs);
 
@@ -78,9 +108,29 @@ public class MarkdownWriter {
                                 x.sources().getKey()))
                                 .collect(Collectors.joining("\n  ")));
             }
-            fileMappings.add(doWrite(pathEntry.getKey(), pathEntry.getValue().get(0), counts));
         }
 
+        tui.createDirectories(pathMap.keySet().stream()
+                .map(fm -> output.resolve(fm.dir.toString()))
+                .toList());
+
+        // Inline notes are rendered from their parent note: group all files for a note
+        // so that one task sets its vault path and renders it
+        Map<T, List<FileMap>> noteFiles = new LinkedHashMap<>();
+        for (Map.Entry<FileMap, List<T>> pathEntry : pathMap.entrySet()) {
+            noteFiles.computeIfAbsent(pathEntry.getValue().get(0), k -> new ArrayList<>())
+                    .add(pathEntry.getKey());
+        }
+
+        // Render notes (concurrently, in parallel mode: notes are independent)
+        Set<Map.Entry<T, List<FileMap>>> toWrite = noteFiles.entrySet();
+        (tui.isParallel() ? toWrite.parallelStream() : toWrite.stream())
+                .map(e -> e.getValue().stream()
+                        .map(fm -> doWrite(fm, e.getKey(), counts))
+                        .toList())
+                .toList()
+                .forEach(fileMappings::addAll);
+
         fileMappings.stream()
                 .filter(fm -> fm.renderIndex)
                 .collect(Collectors.groupingBy(fm -> fm.dir))
@@ -97,14 +147,14 @@ public class MarkdownWriter {
                     }
                 });
 
-        counts.forEach((k, v) -> tui.printlnf(Msg.OK, "Wrote %s %s files.", v, k));
+        new TreeMap<>(counts).forEach((k, v) -> tui.printlnf(Msg.OK, "Wrote %s %s files.", v.sum(), k));
     }
 
-    <T extends QuteBase> FileMap doWrite(FileMap fileMap, T qs, Map<String, Integer> counts) {
+    <T extends QuteBase> FileMap doWrite(FileMap fileMap, T qs, Map<String, LongAdder> counts) {
         try {
             qs.vaultPath(fileMap.dir + "/" + fileMap.fileName);
-            writeFile(fileMap, templates.render(qs));
-            counts.compute(qs.indexType().name(), (k, v) -> (v == null) ? 1 : v + 1);
+            writeNote(targetPath(fileMap), qs);
+            counts.computeIfAbsent(qs.indexType().name(), k -> new LongAdder()).increment();
         } catch (IOException e) {
             throw new UncheckedIOException(e);
         }
@@ -112,11 +162,59 @@ public class MarkdownWriter {
     }
 
     void writeFile(FileMap fileMap, String content) throws IOException {
-        Path targetDir = Paths.get(output.toString(), fileMap.dir.toString());
-        targetDir.toFile().mkdirs();
+        writeContent(targetPath(fileMap), content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private void writeNote(Path target, QuteBase note) throws IOException {
+        if (tui.isWriteIfChanged()) {
+            writeContent(target, templates.render(note).getBytes(StandardCharsets.UTF_8));
+        } else {
+            manifest.add(target, templates.render(note, target));
+            written.increment();
+        }
+    }
 
-        Path target = targetDir.resolve(fileMap.fileName);
-        Files.write(target, content.getBytes(StandardCharsets.UTF_8));
+    /**
+     * Write content to the target file.
+     * With {@code --write-if-changed}, an existing file with the same content is left alone.
+     */
+    private void writeContent(Path target, byte[] content) throws IOException {
+        manifest.add(target, IncrementalState.sha256().digest(content));
+        if (tui.isWriteIfChanged()
+                && Files.isRegularFile(target)
+                && Files.size(target) == content.length
+                && Arrays.equals(Files.readAllBytes(target), content)) {
+            unchanged.increment();
+            return;
+        }
+        Files.write(target, content);
+        written.increment();
+    }
+
+    /**
+     * Save the manifest of files written by this run.
+     * With {@code --prune}, first remove files written by the previous run that were not written again.
+     * Call this once, after all files have been written.
+     */
+    public void writeManifest() {
+        if (tui.isPrune()) {
+            manifest.prune();
+        }
+        manifest.save();
+    }
+
+    /** Summarize files written (and left unchanged or removed) by this writer */
+    public void reportChanges() {
+        if (tui.isWriteIfChanged() || tui.isPrune()) {
+            tui.printlnf(Msg.OK, "Output files: %d written, %d unchanged, %d removed.",
+                    written.sum(), unchanged.sum(), manifest.removed.sum());
+        }
+    }
+
+    private Path targetPath(FileMap fileMap) {
+        Path targetDir = Paths.get(output.toString(), fileMap.dir.toString());
+        tui.createDirectory(targetDir);
+        return targetDir.resolve(fileMap.fileName);
     }
 
     public void writeNotes(Path dir, Collection<QuteNote> notes, boolean compendium) {
@@ -124,15 +222,21 @@ public class MarkdownWriter {
             return;
         }
         Path targetDir = output.resolve(dir);
+        tui.createDirectories(notes.stream()
+                .map(n -> targetDir.resolve(n.targetPath()))
+                .toList());
 
         for (QuteNote n : notes) {
             String fn = n.targetFile();
             Path fd = targetDir.resolve(n.targetPath()).normalize();
-            fd.toFile().mkdirs();
             String fileName = Tui.slugify(fn) + (fn.endsWith(".md") ? "" : ".md");
             String relative = dir.resolve(n.targetPath()).normalize().toString().replace("\\", "/");
             n.vaultPath(relative + "/" + fileName);
-            writeNote(fd, fileName, n);
+            try {
+                writeNote(fd.resolve(fileName), n);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
         }
 
         tui.printlnf(Msg.OK, "Wrote %s notes to %s.",
@@ -140,16 +244,6 @@ public class MarkdownWriter {
                 compendium ? "compendium" : "rules");
     }
 
-    private void writeNote(Path targetDir, String fileName, QuteNote n) {
-        Path target = targetDir.resolve(fileName);
-        String content = templates.render(n);
-        try {
-            Files.write(target, content.getBytes(StandardCharsets.UTF_8));
-        } catch (IOException e) {
-            throw new UncheckedIOException(e);
-        }
-    }
-
     @TemplateData
     public record IndexEntry(String title, String fileName, String relativePath) {
 
@@ -168,12 +262,21 @@ public class MarkdownWriter {
         public final boolean renderIndex;
 
         public FileMap(String title, String fileName, Path dirName, boolean renderIndex) {
+            this(title, dirName, Tui.slugify(fileName) + (fileName.endsWith(".md") ? "" : ".md"), renderIndex);
+        }
+
+        private FileMap(String title, Path dirName, String fileName, boolean renderIndex) {
             this.title = title;
-            this.fileName = Tui.slugify(fileName) + (fileName.endsWith(".md") ? "" : ".md");
+            this.fileName = fileName;
             this.dir = dirName;
             this.renderIndex = renderIndex;
         }
 
+        /** Recreate a file mapping (file name as previously resolved) */
+        static FileMap restore(String title, String fileName, Path dirName, boolean renderIndex) {
+            return new FileMap(title, dirName, fileName, renderIndex);
+        }
+
         @Override
         public String toString() {
             return "FileMap [title=" + title + ", fileName=" + fileName + ", dir=" + dir + "]";
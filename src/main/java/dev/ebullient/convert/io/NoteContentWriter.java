@@ -0,0 +1,102 @@
+package dev.ebullient.convert.io;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.regex.Pattern;
+
+/**
+ * Writer for rendered note content.
+ * <p>
+ * Removes template comments ({@code %%-- ... --%%} followed by a newline)
+ * and leading/trailing whitespace as text streams through: the written
+ * content matches {@code text.replaceAll("%%-- .*? --%%\\n", "").trim()}.
+ * </p>
+ * <p>
+ * A comment can not span lines, so text is filtered a line at a time.
+ * Trailing whitespace is held back until more content arrives (and
+ * discarded on close).
+ * </p>
+ */
+class NoteContentWriter extends Writer {
+    static final Pattern templateComment = Pattern.compile("%%-- .*? --%%\\n");
+
+    private final Writer out;
+    private final StringBuilder line = new StringBuilder();
+    private final StringBuilder whitespace = new StringBuilder();
+    private boolean started = false;
+
+    NoteContentWriter(Writer out) {
+        this.out = out;
+    }
+
+    @Override
+    public void write(String str, int off, int len) throws IOException {
+        int end = off + len;
+        int pos = off;
+        while (pos < end) {
+            int nl = str.indexOf('\n', pos);
+            if (nl < 0 || nl >= end) {
+                line.append(str, pos, end);
+                return;
+            }
+            line.append(str, pos, nl + 1);
+            endLine();
+            pos = nl + 1;
+        }
+    }
+
+    @Override
+    public void write(char[] cbuf, int off, int len) throws IOException {
+        int end = off + len;
+        for (int i = off; i < end; i++) {
+            line.append(cbuf[i]);
+            if (cbuf[i] == '\n') {
+                endLine();
+            }
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        endLine();
+        out.close();
+    }
+
+    private void endLine() throws IOException {
+        CharSequence text = line;
+        if (line.indexOf("%%-- ") >= 0) {
+            text = templateComment.matcher(line).replaceAll("");
+        }
+        emit(text);
+        line.setLength(0);
+    }
+
+    private void emit(CharSequence text) throws IOException {
+        int start = 0;
+        int len = text.length();
+        if (!started) {
+            while (start < len && text.charAt(start) <= ' ') {
+                start++;
+            }
+            if (start == len) {
+                return;
+            }
+            started = true;
+        }
+        int end = len;
+        while (end > start && text.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        if (end > start) {
+            out.append(whitespace);
+            whitespace.setLength(0);
+            out.append(text, start, end);
+        }
+        whitespace.append(text, end, len);
+    }
+}
@@ -0,0 +1,144 @@
+package dev.ebullient.convert.io;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Files written to the output directory, with a hash of their content.
+ * <p>
+ * The manifest is saved to {@code .ttrpg-convert/manifest.json} at the end of a run.
+ * With {@code --prune}, files listed by the previous run that were not written
+ * by this one are removed. Files that were modified after they were written are kept.
+ * </p>
+ */
+class OutputManifest {
+    // Change this if the stored representation changes
+    static final String MANIFEST_VERSION = "1";
+    static final Path MANIFEST_FILE = Path.of(".ttrpg-convert", "manifest.json");
+
+    record Manifest(String version, Map<String, String> files) {
+    }
+
+    private final Tui tui;
+    private final Path output;
+    private final Map<String, String> previous;
+    private final Map<String, String> current = new ConcurrentHashMap<>();
+    final LongAdder removed = new LongAdder();
+
+    OutputManifest(Path output, Tui tui) {
+        this.tui = tui;
+        this.output = output;
+        this.previous = load(output.resolve(MANIFEST_FILE), tui);
+    }
+
+    private static Map<String, String> load(Path manifestFile, Tui tui) {
+        if (Files.isRegularFile(manifestFile)) {
+            try {
+                Manifest manifest = Tui.MAPPER.readValue(manifestFile.toFile(), Manifest.class);
+                if (MANIFEST_VERSION.equals(manifest.version()) && manifest.files() != null) {
+                    return manifest.files();
+                }
+            } catch (IOException e) {
+                tui.debugf("Ignoring unreadable output manifest %s: %s", manifestFile, e.getMessage());
+            }
+        }
+        return Map.of();
+    }
+
+    /** Remember a file written by this run */
+    void add(Path target, byte[] digest) {
+        current.put(vaultPath(target), hex(digest));
+    }
+
+    /** Remember a file left in place from a previous run */
+    void addExisting(Path target) {
+        String path = vaultPath(target);
+        String hash = previous.get(path);
+        if (hash == null) {
+            hash = hashFile(target);
+        }
+        if (hash != null) {
+            current.put(path, hash);
+        }
+    }
+
+    /**
+     * Remove files listed in the previous manifest that were not written by this run.
+     * Files that were changed (or removed) since they were written are left alone.
+     */
+    void prune() {
+        for (var e : new TreeMap<>(previous).entrySet()) {
+            if (current.containsKey(e.getKey())) {
+                continue;
+            }
+            Path target = output.resolve(e.getKey());
+            String hash = hashFile(target);
+            if (hash == null) {
+                continue;
+            }
+            if (!hash.equals(e.getValue())) {
+                tui.warnf("Keeping %s: it was modified after it was written", e.getKey());
+                continue;
+            }
+            try {
+                Files.delete(target);
+                removed.increment();
+                tui.debugf(Msg.WRITING, "Removed %s", e.getKey());
+                removeEmptyParents(target.getParent());
+            } catch (IOException ex) {
+                tui.errorf(ex, "Unable to remove %s: %s", target, ex.getMessage());
+            }
+        }
+    }
+
+    void save() {
+        Path manifestFile = output.resolve(MANIFEST_FILE);
+        try {
+            Files.createDirectories(manifestFile.getParent());
+            Tui.MAPPER.writeValue(manifestFile.toFile(), new Manifest(MANIFEST_VERSION, new TreeMap<>(current)));
+        } catch (IOException e) {
+            tui.errorf(e, "Unable to write output manifest %s: %s", manifestFile, e.getMessage());
+        }
+    }
+
+    private void removeEmptyParents(Path dir) throws IOException {
+        Path root = output.toAbsolutePath().normalize();
+        Path d = dir.toAbsolutePath().normalize();
+        while (d != null && d.startsWith(root) && !d.equals(root)) {
+            try (var entries = Files.list(d)) {
+                if (entries.findAny().isPresent()) {
+                    return;
+                }
+            }
+            Files.delete(d);
+            tui.directoryRemoved(d);
+            d = d.getParent();
+        }
+    }
+
+    private String vaultPath(Path target) {
+        return output.relativize(target).normalize().toString().replace('\\', '/');
+    }
+
+    private String hashFile(Path target) {
+        if (!Files.isRegularFile(target)) {
+            return null;
+        }
+        try {
+            return hex(IncrementalState.sha256().digest(Files.readAllBytes(target)));
+        } catch (IOException e) {
+            tui.debugf("Unable to read %s: %s", target, e.getMessage());
+            return null;
+        }
+    }
+
+    static String hex(byte[] digest) {
+        return HexFormat.of().formatHex(digest, 0, 12);
+    }
+}
@@ -0,0 +1,146 @@
+package dev.ebullient.convert.io;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.stream.Stream;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+
+import dev.ebullient.convert.config.TtrpgConfig.Fix;
+
+/**
+ * On-disk cache of parsed (and fixed) data files, stored in Smile (binary JSON) format.
+ * Entries are keyed by a hash of the file contents and the fixes applied to it,
+ * so a changed file (or changed fixes) will never match a stale entry.
+ * <p>
+ * Stale entries are never read again, so the directory is pruned when the cache is opened:
+ * entries that have not been used for {@link #MAX_AGE} are removed.
+ * The modification time of an entry is updated each time it is read.
+ */
+class ParsedDataCache {
+    // Change this if the cached representation changes
+    static final String CACHE_VERSION = "1";
+    static final String SUFFIX = ".sml";
+    static final String TMP_SUFFIX = ".tmp";
+    static final Duration MAX_AGE = Duration.ofDays(30);
+
+    @FunctionalInterface
+    interface Parser {
+        JsonNode parse(byte[] contents, List<Fix> fixes) throws IOException;
+    }
+
+    private final ObjectMapper smile = SmileMapper.builder().build();
+    private final Path cacheDir;
+    private final Tui tui;
+
+    ParsedDataCache(Path cacheDir, Tui tui) {
+        this.cacheDir = cacheDir;
+        this.tui = tui;
+        prune(Instant.now().minus(MAX_AGE));
+    }
+
+    /**
+     * Remove cache entries (and leftover temporary files) last used before the cutoff.
+     *
+     * @return the number of files removed
+     */
+    int prune(Instant cutoff) {
+        int removed = 0;
+        try (Stream<Path> files = Files.list(cacheDir)) {
+            for (Path p : (Iterable<Path>) files::iterator) {
+                String name = p.getFileName().toString();
+                if (!name.endsWith(SUFFIX) && !name.endsWith(TMP_SUFFIX)) {
+                    continue;
+                }
+                try {
+                    if (Files.getLastModifiedTime(p).toInstant().isBefore(cutoff) && Files.deleteIfExists(p)) {
+                        removed++;
+                    }
+                } catch (IOException e) {
+                    // removed or replaced by a concurrent run
+                    tui.debugf("Unable to prune cache entry %s: %s", p, e.getMessage());
+                }
+            }
+        } catch (IOException e) {
+            tui.debugf("Unable to prune cache directory %s: %s", cacheDir, e.getMessage());
+        }
+        if (removed > 0) {
+            tui.debugf("Removed %d unused entries from cache directory %s", removed, cacheDir);
+        }
+        return removed;
+    }
+
+    JsonNode readTree(Path p, List<Fix> fixes, Parser parser) throws IOException {
+        byte[] contents = Files.readAllBytes(p);
+        Path entry = cacheDir.resolve(cacheKey(contents, fixes) + SUFFIX);
+
+        if (Files.isRegularFile(entry)) {
+            try {
+                JsonNode node = smile.readTree(entry.toFile());
+                if (node != null && !node.isMissingNode()) {
+                    touch(entry);
+                    return node;
+                }
+            } catch (IOException e) {
+                tui.debugf("Ignoring unreadable cache entry %s for %s: %s", entry, p, e.getMessage());
+            }
+        }
+
+        JsonNode node = parser.parse(contents, fixes);
+        write(entry, node);
+        return node;
+    }
+
+    private void touch(Path entry) {
+        try {
+            Files.setLastModifiedTime(entry, FileTime.from(Instant.now()));
+        } catch (IOException e) {
+            tui.debugf("Unable to update cache entry %s: %s", entry, e.getMessage());
+        }
+    }
+
+    private void write(Path entry, JsonNode node) {
+        try {
+            // write to a temporary file first: the cache may be shared by concurrent runs
+            Path tmp = Files.createTempFile(cacheDir, "entry", TMP_SUFFIX);
+            try {
+                smile.writeValue(tmp.toFile(), node);
+                Files.move(tmp, entry, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(tmp);
+            }
+        } catch (IOException e) {
+            tui.debugf("Unable to write cache entry %s: %s", entry, e.getMessage());
+        }
+    }
+
+    static String cacheKey(byte[] contents, List<Fix> fixes) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(CACHE_VERSION.getBytes(StandardCharsets.UTF_8));
+            for (Fix fix : fixes) {
+                digest.update((byte) 0);
+                digest.update(fix.match.getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) 0);
+                digest.update(fix.replace.getBytes(StandardCharsets.UTF_8));
+            }
+            digest.update((byte) 0);
+            digest.update(contents);
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
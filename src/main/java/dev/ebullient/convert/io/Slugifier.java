@@ -0,0 +1,93 @@
+package dev.ebullient.convert.io;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.github.slugify.Slugify;
+
+/**
+ * Slugs for file names, links, and anchors (see {@link Tui#slugify(String)}).
+ * <p>
+ * The same names are slugified over and over (file names, links, image paths),
+ * so slugs are cached. The cache is bounded: it is cleared when it fills up.
+ * </p>
+ * <p>
+ * Pure ASCII text is converted in a single pass that gives the same result as
+ * {@link Slugify} (which would otherwise normalize, and apply locale-specific
+ * replacements for, non-ASCII characters). Other text is passed to {@link Slugify}.
+ * </p>
+ */
+final class Slugifier {
+    static final int MAX_CACHE_SIZE = 1 << 16;
+
+    /** Characters removed (rather than replaced with a separator) */
+    static final String REMOVED = "\"',";
+
+    private final Slugify slugify;
+    private final Locale locale = Locale.getDefault();
+    private final Map<String, String> cache = new ConcurrentHashMap<>();
+
+    Slugifier() {
+        Slugify.SlugifyBuilder builder = Slugify.builder().lowerCase(true);
+        for (char c : REMOVED.toCharArray()) {
+            builder.customReplacement(String.valueOf(c), "");
+        }
+        this.slugify = builder.build();
+    }
+
+    String slugify(String text) {
+        if (text == null) {
+            return "";
+        }
+        String slug = cache.get(text);
+        if (slug == null) {
+            slug = isAscii(text) ? asciiSlug(text) : slugify.slugify(text);
+            if (cache.size() >= MAX_CACHE_SIZE) {
+                cache.clear();
+            }
+            cache.put(text, slug);
+        }
+        return slug;
+    }
+
+    /** @return the slug computed by {@link Slugify}, bypassing the cache and the ASCII conversion */
+    String slugifyUncached(String text) {
+        return slugify.slugify(text);
+    }
+
+    static boolean isAscii(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) >= 0x80) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Same as {@link Slugify} for ASCII text: remove {@link #REMOVED} characters,
+     * replace each run of non-word characters with a single {@code -}
+     * (dropping leading and trailing separators), and convert to lower case.
+     */
+    String asciiSlug(String text) {
+        StringBuilder slug = new StringBuilder(text.length());
+        boolean separator = false;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (REMOVED.indexOf(c) >= 0) {
+                continue;
+            }
+            if ((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '_') {
+                if (separator && !slug.isEmpty()) {
+                    slug.append('-');
+                }
+                separator = false;
+                slug.append(c);
+            } else {
+                separator = true;
+            }
+        }
+        return slug.toString().toLowerCase(locale);
+    }
+}
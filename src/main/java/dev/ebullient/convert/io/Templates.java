@@ -2,10 +2,17 @@ package dev.ebullient.convert.io;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
 import java.util.Base64;
 import java.util.Collection;
+import java.util.concurrent.CompletionException;
 
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
@@ -41,6 +48,14 @@ public class Templates {
 
         String key = config.datasource() + "/" + id;
 
+        if (!engine.isTemplateLoaded(key)) {
+            return loadTemplate(id, key);
+        }
+        return engine.getTemplate(key);
+    }
+
+    /** Load (once) a custom or default template; notes may be rendered concurrently */
+    private synchronized Template loadTemplate(String id, String key) {
         if (!engine.isTemplateLoaded(key)) {
             Path customPath = config.getCustomTemplate(id);
             if (customPath != null) {
@@ -78,6 +93,49 @@ public class Templates {
         }
     }
 
+    /**
+     * Render a note straight to the target file.
+     * The file content is the same as {@link #render(QuteBase)}.
+     *
+     * @return SHA-256 digest of the file content
+     */
+    public byte[] render(QuteBase resource, Path target) throws IOException {
+        Template tpl = customTemplateOrDefault(resource.template());
+        MessageDigest digest = IncrementalState.sha256();
+        String error = null;
+        try (Writer out = new NoteContentWriter(new OutputStreamWriter(
+                new DigestOutputStream(Files.newOutputStream(target), digest), StandardCharsets.UTF_8))) {
+            tpl.data("resource", resource)
+                    .consume(chunk -> {
+                        try {
+                            out.write(chunk);
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    })
+                    .toCompletableFuture().join();
+        } catch (CompletionException | TemplateException ex) {
+            Throwable cause = ex instanceof CompletionException ? ex.getCause() : ex;
+            if (cause instanceof UncheckedIOException uio) {
+                throw uio.getCause();
+            } else if (cause instanceof TemplateException tex) {
+                Throwable texCause = tex.getCause();
+                error = texCause != null ? texCause.toString() : tex.toString();
+                tui.errorf(tex, error);
+            } else if (cause instanceof RuntimeException rex) {
+                throw rex;
+            } else {
+                throw ex;
+            }
+        }
+        if (error != null) {
+            byte[] content = ("%% ERROR: " + error + " %%").getBytes(StandardCharsets.UTF_8);
+            Files.write(target, content);
+            return IncrementalState.sha256().digest(content);
+        }
+        return digest.digest();
+    }
+
     public String renderInlineEmbedded(QuteUtil resource) {
         Template tpl = customTemplateOrDefault(resource.template());
         try {
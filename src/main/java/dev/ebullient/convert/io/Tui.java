@@ -10,22 +10,31 @@ import java.io.PrintStream;
 import java.io.PrintWriter;
 import java.net.URI;
 import java.net.URL;
+import java.nio.ByteBuffer;
 import java.nio.channels.Channels;
 import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.CodingErrorAction;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
 import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.BiConsumer;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import jakarta.enterprise.context.ApplicationScoped;
@@ -50,7 +59,6 @@ import com.fasterxml.jackson.databind.introspect.VisibilityChecker;
 import com.fasterxml.jackson.databind.json.JsonMapper;
 import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
 import com.fasterxml.jackson.dataformat.yaml.YAMLFactoryBuilder;
-import com.github.slugify.Slugify;
 
 import dev.ebullient.convert.VersionProvider;
 import dev.ebullient.convert.config.Datasource;
@@ -92,17 +100,12 @@ public class Tui {
             .enable(MapperFeature.ACCEPT_CASE_INSENSITIVE_ENUMS)
             .build());
 
-    private static Slugify slugify;
+    private static Slugifier slugifier;
 
-    static Slugify slugifier() {
-        Slugify s = slugify;
+    static Slugifier slugifier() {
+        Slugifier s = slugifier;
         if (s == null) {
-            slugify = s = Slugify.builder()
-                    .customReplacement("\"", "")
-                    .customReplacement("'", "")
-                    .customReplacement(",", "")
-                    .lowerCase(true)
-                    .build();
+            slugifier = s = new Slugifier();
         }
         return s;
     }
@@ -137,43 +140,44 @@ public class Tui {
         return mapper;
     }
 
-    private static Yaml plainYaml;
+    // Yaml instances are not thread-safe (notes may be rendered concurrently)
+    private static final ThreadLocal<Yaml> plainYaml = ThreadLocal.withInitial(Tui::createPlainYaml);
 
     public static Yaml plainYaml() {
-        Yaml y = plainYaml;
-        if (y == null) {
-            DumperOptions options = new DumperOptions();
-            options.setDefaultScalarStyle(ScalarStyle.PLAIN);
-            options.setDefaultFlowStyle(FlowStyle.BLOCK);
-            options.setPrettyFlow(true);
+        return plainYaml.get();
+    }
 
-            Representer representer = new Representer(options);
-            representer.addClassTag(dev.ebullient.convert.qute.NamedText.class, Tag.MAP); //
+    private static Yaml createPlainYaml() {
+        DumperOptions options = new DumperOptions();
+        options.setDefaultScalarStyle(ScalarStyle.PLAIN);
+        options.setDefaultFlowStyle(FlowStyle.BLOCK);
+        options.setPrettyFlow(true);
 
-            y = plainYaml = new Yaml(representer, options);
-        }
-        return y;
+        Representer representer = new Representer(options);
+        representer.addClassTag(dev.ebullient.convert.qute.NamedText.class, Tag.MAP); //
+
+        return new Yaml(representer, options);
     }
 
-    private static Yaml quotedYaml;
+    private static final ThreadLocal<Yaml> quotedYaml = ThreadLocal.withInitial(Tui::createQuotedYaml);
 
     public static Yaml quotedYaml() {
-        Yaml y = quotedYaml;
-        if (y == null) {
-            DumperOptions options = new DumperOptions();
-            options.setDefaultScalarStyle(ScalarStyle.DOUBLE_QUOTED);
-            options.setPrettyFlow(true);
-            options.setSplitLines(true);
-            options.setIndent(2);
-            options.setIndicatorIndent(2);
-            options.setIndentWithIndicator(true);
+        return quotedYaml.get();
+    }
 
-            Representer representer = new Representer(options);
-            representer.addClassTag(dev.ebullient.convert.qute.NamedText.class, Tag.MAP); //
+    private static Yaml createQuotedYaml() {
+        DumperOptions options = new DumperOptions();
+        options.setDefaultScalarStyle(ScalarStyle.DOUBLE_QUOTED);
+        options.setPrettyFlow(true);
+        options.setSplitLines(true);
+        options.setIndent(2);
+        options.setIndicatorIndent(2);
+        options.setIndentWithIndicator(true);
 
-            y = quotedYaml = new Yaml(representer, options);
-        }
-        return y;
+        Representer representer = new Representer(options);
+        representer.addClassTag(dev.ebullient.convert.qute.NamedText.class, Tag.MAP); //
+
+        return new Yaml(representer, options);
     }
 
     public static String slugify(String s) {
@@ -196,7 +200,16 @@ public class Tui {
     private boolean verbose;
     private boolean verboseOrLog;
     private Path output = Paths.get("");
+    private boolean parallel;
+    private boolean lazySources;
+    private ParsedDataCache dataCache;
+    private int textCacheSize;
+    private boolean writeIfChanged;
+    private boolean incremental;
+    private boolean prune;
     private final Set<Path> inputRoot = new TreeSet<>();
+    /** Output directories created (or found) during this run */
+    private final Set<Path> knownDirectories = ConcurrentHashMap.newKeySet();
 
     public Tui() {
         this.ansi = Help.Ansi.OFF;
@@ -251,6 +264,61 @@ public class Tui {
         this.output = output;
     }
 
+    public void setParallel(boolean parallel) {
+        this.parallel = parallel;
+    }
+
+    public boolean isParallel() {
+        return parallel;
+    }
+
+    public void setLazySources(boolean lazySources) {
+        this.lazySources = lazySources;
+    }
+
+    public void setDataCache(Path cacheDir) {
+        if (cacheDir == null) {
+            this.dataCache = null;
+        } else if (cacheDir.toFile().isDirectory() || cacheDir.toFile().mkdirs()) {
+            this.dataCache = new ParsedDataCache(cacheDir, this);
+        } else {
+            errorf("Unable to create cache directory %s; parsed data will not be cached", cacheDir);
+            this.dataCache = null;
+        }
+    }
+
+    public void setTextCacheSize(int textCacheSize) {
+        this.textCacheSize = textCacheSize;
+    }
+
+    public int textCacheSize() {
+        return textCacheSize;
+    }
+
+    public void setWriteIfChanged(boolean writeIfChanged) {
+        this.writeIfChanged = writeIfChanged;
+    }
+
+    public boolean isWriteIfChanged() {
+        return writeIfChanged;
+    }
+
+    public void setIncremental(boolean incremental) {
+        this.incremental = incremental;
+    }
+
+    public boolean isIncremental() {
+        return incremental;
+    }
+
+    public void setPrune(boolean prune) {
+        this.prune = prune;
+    }
+
+    public boolean isPrune() {
+        return prune;
+    }
+
     public void setTemplates(Templates templates) {
         this.templates = templates;
     }
@@ -422,10 +490,49 @@ public class Tui {
                 .findFirst();
     }
 
+    /**
+     * Create output directories that have not been seen yet (in a stable order).
+     * Use this to prepare the directories for a batch of files up front.
+     */
+    public void createDirectories(Collection<Path> dirs) {
+        dirs.stream()
+                .map(d -> d.toAbsolutePath().normalize())
+                .filter(d -> !knownDirectories.contains(d))
+                .distinct()
+                .sorted()
+                .forEach(this::createDirectory);
+    }
+
+    /**
+     * Make sure an output directory exists.
+     * Directories are created (or found) once: later calls for the same directory
+     * do not touch the file system.
+     */
+    public void createDirectory(Path dir) {
+        Path d = dir.toAbsolutePath().normalize();
+        if (knownDirectories.contains(d)) {
+            return;
+        }
+        try {
+            Files.createDirectories(d);
+            // parents exist, too
+            Path p = d;
+            while (p != null && knownDirectories.add(p)) {
+                p = p.getParent();
+            }
+        } catch (IOException e) {
+            errorf(e, "Unable to create directory %s: %s", d, e.getMessage());
+        }
+    }
+
+    void directoryRemoved(Path dir) {
+        knownDirectories.remove(dir.toAbsolutePath().normalize());
+    }
+
     public void copyFonts(Collection<FontRef> fonts) {
         for (FontRef fontRef : fonts) {
             Path targetPath = output.resolve(Path.of("css-snippets", slugify(fontRef.fontFamily) + ".css"));
-            targetPath.getParent().toFile().mkdirs();
+            createDirectory(targetPath.getParent());
 
             verbosef(Msg.WRITING, "Generating CSS snippet for %s", fontRef.sourcePath);
             if (fontRef.sourcePath.startsWith("http")) {
@@ -452,6 +559,11 @@ public class Tui {
     public void copyImages(Collection<ImageRef> images) {
         verbosef(Msg.PROGRESS, "Processing images");
 
+        createDirectories(images.stream()
+                .filter(image -> image.targetFilePath() != null)
+                .map(image -> output.resolve(image.targetFilePath()).getParent())
+                .toList());
+
         for (ImageRef image : images) {
             Path targetPath = image.targetFilePath() == null
                     ? null
@@ -470,8 +582,7 @@ public class Tui {
             }
 
             // target path must be pre-resolved to compendium or rules root
-            // so just make sure the image dir exists
-            targetPath.getParent().toFile().mkdirs();
+            // (image directories were created above)
             try {
                 Files.copy(image.sourcePath(), targetPath, StandardCopyOption.REPLACE_EXISTING);
             } catch (IOException e) {
@@ -482,7 +593,6 @@ public class Tui {
 
     private void copyImageResource(ImageRef image, Path targetPath) {
         String sourcePath = image.sourcePath().toString().replace("stream", "");
-        targetPath.getParent().toFile().mkdirs();
 
         try {
             InputStream in = TtrpgConfig.class.getResourceAsStream(sourcePath);
@@ -493,8 +603,6 @@ public class Tui {
     }
 
     private void copyRemoteImage(ImageRef image, Path targetPath) {
-        targetPath.getParent().toFile().mkdirs();
-
         String url = image.url();
         if (url == null) {
             errorf("ImageRef %s has no URL", image.targetFilePath());
@@ -519,27 +627,209 @@ public class Tui {
 
     public boolean readFile(Path p, List<Fix> fixes, BiConsumer<String, JsonNode> callback) {
         inputRoot.add(p.getParent().toAbsolutePath());
+        JsonNode node = parseFile(p, fixes);
+        if (node == null) {
+            return false;
+        }
+        callback.accept(p.toFile().getName(), node);
+        return true;
+    }
+
+    private JsonNode parseFile(Path p, List<Fix> fixes) {
         try {
-            File f = p.toFile();
-            String contents = Files.readString(p);
-            for (Fix fix : fixes) {
-                contents = contents.replaceAll(fix.match, fix.replace);
+            if (dataCache != null) {
+                return dataCache.readTree(p, fixes, Tui::parseContents);
+            }
+            if (fixes.isEmpty()) {
+                // Most files need no fixes: parse directly from the file (no intermediate String)
+                return MAPPER.readTree(p.toFile());
             }
-            JsonNode node = MAPPER.readTree(contents);
-            callback.accept(f.getName(), node);
+            return applyFixes(Files.readString(p), fixes);
         } catch (IOException e) {
             errorf(e, "Unable to read source file at path %s (%s)", p, e.getMessage());
+            return null;
+        }
+    }
+
+    private static JsonNode parseContents(byte[] contents, List<Fix> fixes) throws IOException {
+        return fixes.isEmpty()
+                ? MAPPER.readTree(contents)
+                : applyFixes(decode(contents), fixes);
+    }
+
+    /** Decode UTF-8 like {@link Files#readString(Path)}: malformed input is an error, not replaced */
+    private static String decode(byte[] contents) throws CharacterCodingException {
+        return StandardCharsets.UTF_8.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPORT)
+                .onUnmappableCharacter(CodingErrorAction.REPORT)
+                .decode(ByteBuffer.wrap(contents))
+                .toString();
+    }
+
+    private static JsonNode applyFixes(String contents, List<Fix> fixes) throws IOException {
+        for (Fix fix : fixes) {
+            contents = fix.apply(contents);
+        }
+        return MAPPER.readTree(contents);
+    }
+
+    /**
+     * Read and parse a list of files, passing each parsed tree to the callback
+     * (on this thread, in list order).
+     */
+    private boolean readFiles(List<InputFile> files, BiConsumer<String, JsonNode> callback) {
+        if (lazySources && files.stream().anyMatch(f -> f.source() != null)) {
+            return readFilesBySource(files, callback);
+        }
+        List<JsonNode> nodes = parseFiles(files);
+        boolean result = true;
+        for (int i = 0; i < files.size(); i++) {
+            result &= acceptFile(files.get(i), nodes.get(i), callback);
+        }
+        return result;
+    }
+
+    /**
+     * Files listed in an index.json manifest are only read if their source is
+     * included by the configuration, if they contain entries from an included source
+     * (e.g. otherSources), or if an included file copies from them.
+     * Files that are not listed in a manifest are always read.
+     * Files are imported in list order, as they are without lazy sources.
+     */
+    private boolean readFilesBySource(List<InputFile> files, BiConsumer<String, JsonNode> callback) {
+        Optional<Set<String>> configured = TtrpgConfig.getConfig().configuredSources();
+        if (configured.isEmpty()) {
+            debugf("Reading all data files: included sources can not be determined from configuration");
+            List<JsonNode> nodes = parseFiles(files);
+            boolean result = true;
+            for (int i = 0; i < files.size(); i++) {
+                result &= acceptFile(files.get(i), nodes.get(i), callback);
+            }
+            return result;
+        }
+
+        Set<String> sources = new HashSet<>(configured.get());
+        Pattern sourcePattern = sourcePattern(sources);
+
+        // Check listed files for included sources (concurrently, in parallel mode)
+        List<InputFile> listed = files.stream().filter(f -> f.source() != null).toList();
+        Set<InputFile> selected = (parallel ? listed.parallelStream() : listed.stream())
+                .filter(f -> sources.contains(f.source()) || containsSource(f.path(), sourcePattern))
+                .collect(Collectors.toSet());
+
+        Map<InputFile, JsonNode> parsed = new HashMap<>();
+        List<InputFile> next = files.stream()
+                .filter(f -> f.source() == null || selected.contains(f))
+                .toList();
+        while (!next.isEmpty()) {
+            List<JsonNode> nodes = parseFiles(next);
+            for (int i = 0; i < next.size(); i++) {
+                JsonNode node = nodes.get(i);
+                parsed.put(next.get(i), node);
+                if (node != null) {
+                    collectCopySources(node, sources);
+                }
+            }
+            next = listed.stream()
+                    .filter(f -> !parsed.containsKey(f) && sources.contains(f.source()))
+                    .toList();
+        }
+
+        boolean result = true;
+        for (InputFile f : files) {
+            if (parsed.containsKey(f)) {
+                result &= acceptFile(f, parsed.get(f), callback);
+            } else {
+                debugf(Msg.SOURCE, "Skipping %s: source %s is not included", f.path(), f.source());
+            }
+        }
+        verbosef(Msg.SOURCE, "Read %d of %d data files listed in source manifests",
+                listed.stream().filter(parsed::containsKey).count(), listed.size());
+        return result;
+    }
+
+    /** @return pattern matching a source attribute with one of the given sources: {@code "source": "PHB"} */
+    static Pattern sourcePattern(Collection<String> sources) {
+        return Pattern.compile(sources.stream()
+                .map(Pattern::quote)
+                .collect(Collectors.joining("|", "\"source\"\\s*:\\s*\"(?:", ")\"")),
+                Pattern.CASE_INSENSITIVE);
+    }
+
+    private List<JsonNode> parseFiles(List<InputFile> files) {
+        files.forEach(f -> inputRoot.add(f.path().getParent().toAbsolutePath()));
+        // In parallel mode, files are parsed on the common fork/join pool
+        return (parallel ? files.parallelStream() : files.stream())
+                .map(f -> parseFile(f.path(), f.fixes()))
+                .toList();
+    }
+
+    private boolean acceptFile(InputFile f, JsonNode node, BiConsumer<String, JsonNode> callback) {
+        if (node == null) {
             return false;
         }
+        callback.accept(f.path().toFile().getName(), node);
         return true;
     }
 
+    private boolean containsSource(Path p, Pattern sourcePattern) {
+        try {
+            return sourcePattern.matcher(Files.readString(p)).find();
+        } catch (IOException e) {
+            return true; // read it anyway: parse will report the error
+        }
+    }
+
+    private static void collectCopySources(JsonNode node, Set<String> sources) {
+        for (JsonNode array : node) {
+            if (array.isArray()) {
+                for (JsonNode element : array) {
+                    JsonNode copySource = element.path("_copy").get("source");
+                    if (copySource != null) {
+                        sources.add(copySource.asText().toLowerCase());
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * 5eTools data directories may contain index.json and fluff-index.json files
+     * that map a source (or a class) to the data file that contains it.
+     *
+     * @return map of data file name to lower-case source (or class) name
+     */
+    private Map<String, String> readManifests(Path dir) {
+        Map<String, String> manifest = new HashMap<>();
+        for (String name : List.of("index.json", "fluff-index.json")) {
+            Path p = dir.resolve(name);
+            if (!p.toFile().isFile()) {
+                continue;
+            }
+            try {
+                for (var e : MAPPER.readTree(p.toFile()).properties()) {
+                    manifest.put(e.getValue().asText(), e.getKey().toLowerCase());
+                }
+            } catch (IOException e) {
+                debugf("Unable to read source manifest %s: %s", p, e.getMessage());
+            }
+        }
+        return manifest;
+    }
+
     public boolean readDirectory(String relative, Path dir, BiConsumer<String, JsonNode> callback) {
+        List<InputFile> files = new ArrayList<>();
+        boolean result = collectDirectory(relative, dir, files);
+        return readFiles(files, callback) && result;
+    }
+
+    private boolean collectDirectory(String relative, Path dir, List<InputFile> files) {
         debugf(Msg.FOLDER.wrap(dir.toString()));
 
         inputRoot.add(dir.toAbsolutePath());
 
         boolean result = true;
+        Map<String, String> manifest = lazySources ? readManifests(dir) : Map.of();
         String basename = dir.getFileName().toString();
         if ("ancestries".equals(basename)) {
             basename = "ancestry";
@@ -553,9 +843,9 @@ public class Tui {
                 File f = p.toFile();
                 String name = p.getFileName().toString();
                 if (f.isDirectory()) {
-                    result &= readDirectory(relative + p.getFileName() + '/', p, callback);
+                    result &= collectDirectory(relative + p.getFileName() + '/', p, files);
                 } else if ((name.startsWith("fluff") || name.startsWith(basename)) && name.endsWith(".json")) {
-                    result &= readFile(p, TtrpgConfig.getFixes(relative + name), callback);
+                    files.add(new InputFile(p, TtrpgConfig.getFixes(relative + name), manifest.get(name)));
                 }
             }
         } catch (Exception e) {
@@ -583,15 +873,22 @@ public class Tui {
         inputRoot.add(toolsBase.getParent());
 
         boolean result = true;
+        List<InputFile> files = new ArrayList<>();
         for (String input : inputs) {
             Path p = toolsBase.resolve(input);
             if (p.toFile().isFile()) {
-                result &= readFile(p, TtrpgConfig.getFixes(input), callback);
+                files.add(new InputFile(p, TtrpgConfig.getFixes(input), null));
             } else {
-                result &= readDirectory(input + "/", p, callback);
+                result &= collectDirectory(input + "/", p, files);
             }
         }
-        return result;
+        return readFiles(files, callback) && result;
+    }
+
+    /**
+     * @param source lower-case source (or class) from an index.json manifest, or null
+     */
+    record InputFile(Path path, List<Fix> fixes, String source) {
     }
 
     public void writeJsonFile(Path outputFile, Map<String, Object> values) throws IOException {
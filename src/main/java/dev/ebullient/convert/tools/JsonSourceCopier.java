@@ -3,11 +3,15 @@ package dev.ebullient.convert.tools;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
 import java.util.TreeSet;
 import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
@@ -79,6 +83,101 @@ public abstract class JsonSourceCopier<T extends IndexType> implements JsonTextC
         return copyTo;
     }
 
+    /**
+     * Return the keys of the nodes that must be resolved before the given {@code _copy} can be applied.
+     * By default, this is only the node being copied.
+     */
+    protected List<String> copyDependencies(T type, JsonNode _copy) {
+        return List.of(type.createKey(_copy));
+    }
+
+    /**
+     * Resolve all copies in the given nodes as a dependency graph.
+     * <p>
+     * The {@code _copy} graph is built once, and cycles are reported (and skipped) up front.
+     * Copies are then resolved in dependency order: each base node is resolved (in place) exactly
+     * once before anything that copies it. Copies at the same depth are independent of each other,
+     * and are resolved concurrently when {@code parallel} is true.
+     * </p>
+     *
+     * @param nodes Nodes to resolve (key to node)
+     * @param typeOf Find the type of a node from its key
+     * @param parallel True if independent copies should be resolved concurrently
+     */
+    public void resolveCopies(Map<String, JsonNode> nodes, Function<String, T> typeOf, boolean parallel) {
+        Map<String, List<String>> dependencies = new HashMap<>();
+        for (Entry<String, JsonNode> e : nodes.entrySet()) {
+            JsonNode _copy = MetaFields._copy.getFrom(e.getValue());
+            if (_copy != null) {
+                dependencies.put(e.getKey(), copyDependencies(typeOf.apply(e.getKey()), _copy));
+            }
+        }
+
+        // depth of each copy: 1 + depth of the deepest copy it depends on; -1 for a cycle
+        Map<String, Integer> depth = new HashMap<>();
+        List<List<String>> levels = new ArrayList<>();
+        for (String key : new TreeSet<>(dependencies.keySet())) {
+            int d = copyDepth(key, dependencies, depth, new LinkedHashSet<>());
+            if (d > 0) {
+                while (levels.size() < d) {
+                    levels.add(new ArrayList<>());
+                }
+                levels.get(d - 1).add(key);
+            }
+        }
+
+        for (List<String> level : levels) {
+            List<JsonNode> resolved = (parallel ? level.parallelStream() : level.stream())
+                    .map(key -> resolveCopy(key, nodes.get(key), typeOf.apply(key), nodes, dependencies))
+                    .toList();
+            for (int i = 0; i < level.size(); i++) {
+                nodes.put(level.get(i), resolved.get(i));
+            }
+        }
+    }
+
+    private int copyDepth(String key, Map<String, List<String>> dependencies, Map<String, Integer> depth,
+            Set<String> visiting) {
+        Integer known = depth.get(key);
+        if (known != null) {
+            return known;
+        }
+        List<String> dependsOn = dependencies.get(key);
+        if (dependsOn == null) {
+            return 0; // not a copy (or not present; reported when the copy is resolved)
+        }
+        if (!visiting.add(key)) {
+            tui().errorf("(%s) Circular copy: %s. This is a data entry error.", key, String.join(" -> ", visiting));
+            depth.put(key, -1);
+            return -1;
+        }
+        int result = 1;
+        for (String dep : dependsOn) {
+            int d = copyDepth(dep, dependencies, depth, visiting);
+            if (d < 0) {
+                result = -1;
+                break;
+            }
+            result = Math.max(result, d + 1);
+        }
+        visiting.remove(key);
+        depth.put(key, result);
+        return result;
+    }
+
+    private JsonNode resolveCopy(String key, JsonNode node, T type, Map<String, JsonNode> nodes,
+            Map<String, List<String>> dependencies) {
+        for (String dep : dependencies.get(key)) {
+            JsonNode depNode = nodes.get(dep);
+            if (depNode != null && MetaFields._copy.existsIn(depNode)) {
+                // the copy this depends on could not be resolved: don't try again from here
+                tui().errorf("(%s): Unable to copy from %s (copy was not resolved)", key, dep);
+                return node;
+            }
+        }
+        return handleCopy(type, node);
+    }
+
     /**
      * Actually do the copy, copying required values from {@code copyFrom} into {@code copyTo}.
      *
@@ -272,6 +272,24 @@ public class ParseState {
         }
     }
 
+    /**
+     * State that changes how text is rendered (tables, lists, footnotes, traits, dice roller).
+     * Used to key cached text.
+     */
+    public String renderFlags() {
+        ParseState.ParseStateInfo current = stack.peek();
+        DiceRoller roller = TtrpgConfig.getConfig().useDiceRoller();
+        if (current == null) {
+            return roller.name();
+        }
+        return roller.name()
+                + (current.inFootnotes ? "F" : "")
+                + (current.inHtmlTable ? "H" : "")
+                + (current.inMarkdownTable ? "M" : "")
+                + (current.inList ? "L" : "")
+                + (current.inTrait ? "T" : "");
+    }
+
     public String getListIndent() {
         ParseState.ParseStateInfo current = stack.peek();
         return current == null ? "" : current.listIndent;
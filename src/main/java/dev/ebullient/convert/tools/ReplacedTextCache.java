@@ -0,0 +1,105 @@
+package dev.ebullient.convert.tools;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import dev.ebullient.convert.io.Msg;
+import dev.ebullient.convert.io.Tui;
+
+/**
+ * Size-bounded (least recently used) cache of rendered text fragments.
+ * <p>
+ * Callers are responsible for building a key that captures everything
+ * (other than the input text) that can change the rendered output.
+ * Hits, misses, and the (measured) time spent rendering cached values
+ * are counted for reporting.
+ * </p>
+ */
+public class ReplacedTextCache {
+    record Rendered(String text, long nanos) {
+    }
+
+    private final int maxSize;
+    private final Map<String, Rendered> entries;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong savedNanos = new AtomicLong();
+
+    public ReplacedTextCache(int maxSize) {
+        this.maxSize = Math.max(0, maxSize);
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Rendered> eldest) {
+                return size() > ReplacedTextCache.this.maxSize;
+            }
+        };
+    }
+
+    public boolean enabled() {
+        return maxSize > 0;
+    }
+
+    /**
+     * Return the cached text for this key, or render (and remember) it.
+     * Rendering happens outside of the cache lock: rendering text may
+     * (recursively) render other fragments.
+     */
+    public String computeIfAbsent(String key, Supplier<String> render) {
+        if (!enabled()) {
+            return render.get();
+        }
+        Rendered cached;
+        synchronized (entries) {
+            cached = entries.get(key);
+        }
+        if (cached != null) {
+            hits.incrementAndGet();
+            savedNanos.addAndGet(cached.nanos());
+            return cached.text();
+        }
+        long start = System.nanoTime();
+        String text = render.get();
+        long elapsed = System.nanoTime() - start;
+        misses.incrementAndGet();
+        synchronized (entries) {
+            entries.put(key, new Rendered(text, elapsed));
+        }
+        return text;
+    }
+
+    public long hits() {
+        return hits.get();
+    }
+
+    public long misses() {
+        return misses.get();
+    }
+
+    public void report(Tui tui) {
+        if (!enabled()) {
+            return;
+        }
+        long total = hits() + misses();
+        int size;
+        synchronized (entries) {
+            size = entries.size();
+        }
+        tui.infof(Msg.INFO, "Text cache: %d hits of %d lookups (%.1f%%), saved ~%d ms rendering; %d of %d entries used",
+                hits(), total,
+                total == 0 ? 0.0 : 100.0 * hits() / total,
+                TimeUnit.NANOSECONDS.toMillis(savedNanos.get()),
+                size, maxSize);
+    }
+
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+        }
+        hits.set(0);
+        misses.set(0);
+        savedNanos.set(0);
+    }
+}
@@ -0,0 +1,73 @@
+package dev.ebullient.convert.tools;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
+
+import dev.ebullient.convert.qute.ImageRef;
+
+/**
+ * Sources (by key) and images (by source path, or source path and target) for one conversion run.
+ * <p>
+ * Each index owns a registry: nothing is shared between runs.
+ * The registry can be used from several threads. The first value registered for a key wins;
+ * values are created outside of map locks (creating sources may look up other sources).
+ * </p>
+ *
+ * @param <S> the type of sources
+ */
+public class SourceRegistry<S extends CompendiumSources> {
+    private final Map<String, S> keyToSources = new ConcurrentHashMap<>();
+    private final Map<String, ImageRef> imageSourceToRef = new ConcurrentHashMap<>();
+
+    /** @return sources for the key, or null */
+    public S findSources(String key) {
+        return key == null ? null : keyToSources.get(key);
+    }
+
+    /**
+     * @return sources for the key: existing sources, or new sources created
+     *         (and registered, unless another thread registered them first)
+     */
+    public S computeIfAbsent(String key, Function<String, S> create) {
+        S sources = keyToSources.get(key);
+        if (sources == null) {
+            S created = create.apply(key);
+            sources = keyToSources.putIfAbsent(key, created);
+            if (sources == null) {
+                sources = created;
+            }
+        }
+        return sources;
+    }
+
+    /**
+     * Build and register an image reference.
+     *
+     * @param key image source path (and target, if the target depends on the entry)
+     * @param build build the reference, given the previously registered reference (or null)
+     * @return the image reference
+     */
+    public ImageRef image(String key, UnaryOperator<ImageRef> build) {
+        ImageRef previous = imageSourceToRef.get(key);
+        ImageRef imageRef = build.apply(previous);
+        if (previous == null) {
+            ImageRef registered = imageSourceToRef.putIfAbsent(key, imageRef);
+            if (registered != null) {
+                imageRef = build.apply(registered);
+            }
+        }
+        return imageRef;
+    }
+
+    public Collection<ImageRef> images() {
+        return imageSourceToRef.values();
+    }
+
+    public void clear() {
+        keyToSources.clear();
+        imageSourceToRef.clear();
+    }
+}
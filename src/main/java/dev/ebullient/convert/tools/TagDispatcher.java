@@ -0,0 +1,161 @@
+package dev.ebullient.convert.tools;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.MatchResult;
+import java.util.regex.Pattern;
+
+/**
+ * Ordered replacements for {@code {@tag ...}} text, dispatched by tag name.
+ * <p>
+ * Replacements are applied in a fixed order. Each replacement declares the tags
+ * it handles, and is skipped unless one of those tags is present in the text.
+ * For the usual case (a single {@code {@tag ...}} span found by
+ * {@link JsonTextConverter#replaceTokens}), only the replacements for that tag
+ * are evaluated. The replacements that handle a tag are computed once per tag name.
+ * </p>
+ *
+ * @param <C> the converter used to render replacements
+ */
+public final class TagDispatcher<C> {
+
+    @FunctionalInterface
+    public interface Replacement<C> {
+        String apply(C source, String text, boolean nested);
+    }
+
+    @FunctionalInterface
+    public interface MatchReplacement<C> {
+        String apply(C source, MatchResult match, boolean nested);
+    }
+
+    @FunctionalInterface
+    public interface ErrorHandler<C> {
+        void error(C source, Exception e, String input);
+    }
+
+    public record PatternTags(Pattern pattern, Set<String> tags, Set<String> tagPrefixes) {
+        public <C> TagReplacement<C> with(MatchReplacement<C> replacement) {
+            return new TagReplacement<>(tags, tagPrefixes,
+                    (s, text, nested) -> pattern.matcher(text).replaceAll(m -> replacement.apply(s, m, nested)));
+        }
+    }
+
+    /**
+     * @param tags Tags (exact names) this replacement handles
+     * @param tagPrefixes Tags handled by prefix: the pattern allows other text to follow the tag name
+     *        (e.g. {@code {@actSaveFail ?...}})
+     * @param replacement the replacement to apply
+     */
+    public record TagReplacement<C>(Set<String> tags, Set<String> tagPrefixes, Replacement<C> replacement) {
+        boolean handles(String tag) {
+            return tags.contains(tag) || tagPrefixes.stream().anyMatch(tag::startsWith);
+        }
+    }
+
+    /** Simple replacement (as String.replaceAll): errors are reported, and the text is left unchanged */
+    record SimpleReplacement<C>(Pattern pattern, String replacement) implements Replacement<C> {
+        @Override
+        public String apply(C source, String text, boolean nested) {
+            return pattern.matcher(text).replaceAll(replacement);
+        }
+    }
+
+    private final List<TagReplacement<C>> replacements;
+    private final ErrorHandler<C> onError;
+    /** tag name -> indexes of replacements that handle it (in order) */
+    private final Map<String, int[]> byTag = new ConcurrentHashMap<>();
+
+    public TagDispatcher(List<TagReplacement<C>> replacements, ErrorHandler<C> onError) {
+        this.replacements = List.copyOf(replacements);
+        this.onError = onError;
+    }
+
+    /**
+     * Apply tag replacements to text (usually a single {@code {@tag ...}} span).
+     *
+     * @param source the converter (for linking, lookups, and logging)
+     * @param input the text to replace
+     * @param nested true if this span is nested inside another
+     * @return text with tags replaced
+     */
+    public String replace(C source, String input, boolean nested) {
+        String result = input;
+        int next = 0;
+        BitSet candidates = candidates(result);
+        while (true) {
+            int i = candidates.nextSetBit(next);
+            if (i < 0) {
+                return result;
+            }
+            String replaced = apply(source, replacements.get(i), result, nested, input);
+            if (!replaced.equals(result)) {
+                result = replaced;
+                candidates = candidates(result);
+            }
+            next = i + 1;
+        }
+    }
+
+    private String apply(C source, TagReplacement<C> tr, String text, boolean nested, String input) {
+        if (tr.replacement() instanceof SimpleReplacement) {
+            try {
+                return tr.replacement().apply(source, text, nested);
+            } catch (Exception e) {
+                onError.error(source, e, input);
+                return text;
+            }
+        }
+        return tr.replacement().apply(source, text, nested);
+    }
+
+    /** @return the replacements that could match tags present in this text */
+    private BitSet candidates(String text) {
+        BitSet result = new BitSet();
+        int pos = text.indexOf("{@");
+        while (pos >= 0) {
+            int end = pos + 2;
+            while (end < text.length() && Character.isLetterOrDigit(text.charAt(end))) {
+                end++;
+            }
+            for (int i : byTag.computeIfAbsent(text.substring(pos + 2, end), this::handledBy)) {
+                result.set(i);
+            }
+            pos = text.indexOf("{@", end);
+        }
+        return result;
+    }
+
+    private int[] handledBy(String tag) {
+        List<Integer> result = new ArrayList<>();
+        for (int i = 0; i < replacements.size(); i++) {
+            if (replacements.get(i).handles(tag)) {
+                result.add(i);
+            }
+        }
+        return result.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    public static PatternTags replaceAll(Pattern pattern, String... tags) {
+        return new PatternTags(pattern, Set.copyOf(Arrays.asList(tags)), Set.of());
+    }
+
+    public static PatternTags replaceAllByPrefix(Pattern pattern, String... tags) {
+        return new PatternTags(pattern, Set.of(), Set.copyOf(Arrays.asList(tags)));
+    }
+
+    /** Replacement that handles the named tag(s) */
+    public static <C> TagReplacement<C> tags(Set<String> tags, Replacement<C> replacement) {
+        return new TagReplacement<>(tags, Set.of(), replacement);
+    }
+
+    /** Simple replacement (as String.replaceAll) */
+    public static <C> TagReplacement<C> format(String tag, String regex, String replacement) {
+        return new TagReplacement<>(Set.of(tag), Set.of(), new SimpleReplacement<>(Pattern.compile(regex), replacement));
+    }
+}
@@ -41,6 +41,9 @@ public interface ToolsIndex {
 
     CompendiumConfig cfg();
 
+    /** @return sources and images known to this index (for this run) */
+    SourceRegistry<? extends CompendiumSources> sourceRegistry();
+
     default String rulesVaultRoot() {
         return cfg().rulesVaultRoot();
     }
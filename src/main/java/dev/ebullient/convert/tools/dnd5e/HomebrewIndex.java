@@ -3,12 +3,15 @@ package dev.ebullient.convert.tools.dnd5e;
 import static dev.ebullient.convert.StringUtil.isPresent;
 
 import java.util.Collection;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.TreeMap;
 import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
 import com.fasterxml.jackson.databind.JsonNode;
 
@@ -116,6 +119,19 @@ public class HomebrewIndex implements JsonSource {
         homebrewMetaTypes.clear();
     }
 
+    /** @return homebrew metadata as text (used to detect changes between incremental runs) */
+    String fingerprint() {
+        return homebrewMetaTypes.values().stream()
+                .distinct()
+                .sorted(Comparator.comparing(m -> m.filename))
+                .map(m -> String.join("\n", m.filename,
+                        String.valueOf(SourceField._meta.getFrom(m.homebrewNode)),
+                        new TreeMap<>(m.itemTypes).toString(),
+                        new TreeMap<>(m.itemProperties).toString(),
+                        new TreeMap<>(m.itemMastery).toString()))
+                .collect(Collectors.joining("\n"));
+    }
+
     public boolean addHomebrewSourcesIfPresent(String filename, JsonNode brewNode) {
         JsonNode meta = SourceField._meta.getFrom(brewNode);
         JsonNode sources = HomebrewFields.sources.getFrom(meta);
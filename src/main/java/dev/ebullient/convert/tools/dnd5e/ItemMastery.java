@@ -5,9 +5,9 @@ import static dev.ebullient.convert.StringUtil.toAnchorTag;
 
 import java.util.Collection;
 import java.util.Comparator;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import com.fasterxml.jackson.databind.JsonNode;
 
@@ -43,7 +43,7 @@ public record ItemMastery(
     }
 
     public static final Comparator<ItemMastery> comparator = Comparator.comparing(ItemMastery::name);
-    private static final Map<String, ItemMastery> masteryMap = new HashMap<>();
+    private static final Map<String, ItemMastery> masteryMap = new ConcurrentHashMap<>();
 
     public static ItemMastery forKey(String key) {
         if (!isPresent(key)) {
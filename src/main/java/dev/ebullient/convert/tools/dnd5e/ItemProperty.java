@@ -6,9 +6,9 @@ import static dev.ebullient.convert.StringUtil.valueOrDefault;
 
 import java.util.Collection;
 import java.util.Comparator;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import com.fasterxml.jackson.databind.JsonNode;
 
@@ -50,7 +50,7 @@ record ItemProperty(
     }
 
     public static final Comparator<ItemProperty> comparator = Comparator.comparing(ItemProperty::name);
-    public static final Map<String, ItemProperty> propertyMap = new HashMap<>();
+    public static final Map<String, ItemProperty> propertyMap = new ConcurrentHashMap<>();
 
     public static final ItemProperty CURSED = ItemProperty.customProperty("Cursed", "Cursed Items", "=");
     public static final ItemProperty SILVERED = ItemProperty.customProperty("Silvered", "Silvered Weapons", "=");
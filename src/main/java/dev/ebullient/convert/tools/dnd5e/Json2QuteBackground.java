@@ -20,6 +20,36 @@ public class Json2QuteBackground extends Json2QuteCommon {
     public static final Set<String> bonds = new HashSet<>();
     public static final Set<String> flaws = new HashSet<>();
 
+    // Rows read while converting an entry on this thread (see collectRows)
+    private static final ThreadLocal<TraitRows> entryRows = new ThreadLocal<>();
+
+    /**
+     * Run a unit of conversion work (one entry), collecting trait, ideal, bond, and flaw
+     * rows into the given rows rather than the shared tables.
+     * Rows are added to the shared tables in entry order (see {@link TraitRows#addToTables()}).
+     */
+    static void collectRows(TraitRows rows, Runnable work) {
+        TraitRows previous = entryRows.get();
+        entryRows.set(rows);
+        try {
+            work.run();
+        } finally {
+            entryRows.set(previous);
+        }
+    }
+
+    /** Add table rows to the entry being converted (if collecting), or to the shared tables */
+    static void addRows(String blockid, List<String> table) {
+        TraitRows rows = entryRows.get();
+        if (rows != null) {
+            rows.add(blockid, table);
+        } else {
+            rows = new TraitRows();
+            rows.add(blockid, table);
+            rows.addToTables();
+        }
+    }
+
     final String backgroundName;
 
     Json2QuteBackground(Tools5eIndex index, Tools5eIndexType type, JsonNode jsonNode) {
@@ -62,4 +92,35 @@ public class Json2QuteBackground extends Json2QuteCommon {
                 String.join("\n", text),
                 tags);
     }
+
+    /** Trait, ideal, bond, and flaw rows, in the order they were read */
+    static class TraitRows {
+        final List<String> traits = new ArrayList<>();
+        final List<String> ideals = new ArrayList<>();
+        final List<String> bonds = new ArrayList<>();
+        final List<String> flaws = new ArrayList<>();
+
+        void add(String blockid, List<String> table) {
+            switch (blockid) {
+                case "personality-trait" -> traits.addAll(table);
+                case "ideal" -> ideals.addAll(table);
+                case "bond" -> bonds.addAll(table);
+                case "flaw" -> flaws.addAll(table);
+            }
+        }
+
+        void addAll(TraitRows other) {
+            traits.addAll(other.traits);
+            ideals.addAll(other.ideals);
+            bonds.addAll(other.bonds);
+            flaws.addAll(other.flaws);
+        }
+
+        void addToTables() {
+            Json2QuteBackground.traits.addAll(traits);
+            Json2QuteBackground.ideals.addAll(ideals);
+            Json2QuteBackground.bonds.addAll(bonds);
+            Json2QuteBackground.flaws.addAll(flaws);
+        }
+    }
 }
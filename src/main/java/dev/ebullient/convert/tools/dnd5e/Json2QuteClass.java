@@ -15,6 +15,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
@@ -36,7 +37,7 @@ import dev.ebullient.convert.tools.dnd5e.qute.QuteSubclass;
 public class Json2QuteClass extends Json2QuteCommon {
     final static Pattern footnotePattern = Pattern.compile("\\^\\[([^\\]]+)\\]");
 
-    final static Map<String, ClassFeature> keyToClassFeature = new HashMap<>();
+    final static Map<String, ClassFeature> keyToClassFeature = new ConcurrentHashMap<>();
 
     final Map<String, List<String>> startingText = new HashMap<>();
     final boolean isSidekick;
@@ -177,10 +178,9 @@ public class Json2QuteClass extends Json2QuteCommon {
     }
 
     private ClassFeature getClassFeature(String featureKey, Tools5eIndexType featureType) {
-        return keyToClassFeature.computeIfAbsent(featureKey, k -> {
-            JsonNode featureNode = index().getOriginNoFallback(featureKey);
-            return new ClassFeature(featureType, featureKey, featureNode);
-        });
+        // Look up the node for every entry (not only the first to ask): records the dependency
+        JsonNode featureNode = index().getOriginNoFallback(featureKey);
+        return keyToClassFeature.computeIfAbsent(featureKey, k -> new ClassFeature(featureType, k, featureNode));
     }
 
     List<ClassFeature> findClassFeatures(Tools5eIndexType featureType, JsonNode featureElements,
@@ -666,16 +666,15 @@ public class Json2QuteClass extends Json2QuteCommon {
         String lookup = cf.isTextual() ? cf.asText() : cf.get(fieldName).asText();
 
         String finalKey = type.fromTagReference(lookup);
-        ClassFeature feature = keyToClassFeature.get(finalKey);
-        if (feature == null) {
-            JsonNode cfNode = converter.index().getNode(finalKey);
-            if (cfNode == null) {
-                return null; // skipped or not found
-            }
-            feature = new ClassFeature(type, finalKey, cfNode);
-            keyToClassFeature.putIfAbsent(finalKey, feature);
+        if (finalKey == null) {
+            return null;
+        }
+        // Look up the node for every entry (not only the first to ask): records the dependency
+        JsonNode cfNode = converter.index().getNode(finalKey);
+        if (cfNode == null) {
+            return null; // skipped or not found
         }
-        return feature;
+        return keyToClassFeature.computeIfAbsent(finalKey, k -> new ClassFeature(type, k, cfNode));
     }
 
     static ClassFeature getClassFeature(String featureKey) {
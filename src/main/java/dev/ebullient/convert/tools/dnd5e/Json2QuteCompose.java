@@ -38,6 +38,11 @@ public class Json2QuteCompose extends Json2QuteCommon {
         }
     }
 
+    /** Add elements collected by another composer of the same type (in order) */
+    public void addAll(Json2QuteCompose other) {
+        nodes.addAll(other.nodes);
+    }
+
     @Override
     public String getName() {
         return title;
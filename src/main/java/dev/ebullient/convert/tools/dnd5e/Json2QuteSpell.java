@@ -13,6 +13,7 @@ import java.util.TreeSet;
 
 import com.fasterxml.jackson.databind.JsonNode;
 
+import dev.ebullient.convert.io.IncrementalState;
 import dev.ebullient.convert.tools.JsonNodeReader;
 import dev.ebullient.convert.tools.Tags;
 import dev.ebullient.convert.tools.dnd5e.SpellEntry.SpellReference;
@@ -32,6 +33,7 @@ public class Json2QuteSpell extends Json2QuteCommon {
     @Override
     protected Tools5eQuteBase buildQuteResource() {
         SpellEntry spellEntry = index().getSpellIndex().getSpellEntry(getSources().getKey());
+        IncrementalState.dependsOn(SpellEntry.DEPENDENCY_PREFIX + getSources().getKey(), spellEntry.dependencyText());
 
         Tags tags = new Tags(getSources());
 
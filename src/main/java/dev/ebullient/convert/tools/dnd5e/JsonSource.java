@@ -814,12 +814,7 @@ public interface JsonSource extends JsonTextReplacement {
                     table.add(0, "**" + replaceText(caption) + "**");
                 }
 
-                switch (blockid) {
-                    case "personality-trait" -> Json2QuteBackground.traits.addAll(table);
-                    case "ideal" -> Json2QuteBackground.ideals.addAll(table);
-                    case "bond" -> Json2QuteBackground.bonds.addAll(table);
-                    case "flaw" -> Json2QuteBackground.flaws.addAll(table);
-                }
+                Json2QuteBackground.addRows(blockid, table);
 
                 JsonNode intro = TableFields.intro.getFrom(tableNode);
                 if (intro != null) {
@@ -32,6 +32,7 @@ import dev.ebullient.convert.io.Msg;
 import dev.ebullient.convert.io.Tui;
 import dev.ebullient.convert.qute.ImageRef;
 import dev.ebullient.convert.tools.JsonTextConverter;
+import dev.ebullient.convert.tools.ReplacedTextCache;
 import dev.ebullient.convert.tools.dnd5e.OptionalFeatureIndex.OptionalFeatureCondition;
 import dev.ebullient.convert.tools.dnd5e.qute.AbilityScores;
 
@@ -133,6 +134,16 @@ public interface JsonTextReplacement extends JsonTextConverter<Tools5eIndexType>
     }
 
     default String replaceText(String input) {
+        ReplacedTextCache cache = index().textCache;
+        Tools5eSources sources = getSources();
+        if (cache.enabled() && isPresent(input) && sources != null
+                && !input.contains("{@cite")) { // citations are collected as a side effect
+            // Rendered text depends on parse state, and on homebrew sources for lookups
+            String key = parseState().renderFlags()
+                    + '\u0000' + (sources.isHomebrew() ? sources.getKey() : "")
+                    + '\u0000' + input;
+            return cache.computeIfAbsent(key, () -> replaceTokens(input, (s, b) -> this._replaceTokenText(s, b)));
+        }
         return replaceTokens(input, (s, b) -> this._replaceTokenText(s, b));
     }
 
@@ -187,275 +198,188 @@ public interface JsonTextReplacement extends JsonTextConverter<Tools5eIndexType>
     }
 
     default String _replaceTokenText(String input, boolean nested) {
-        String result = input;
-
         // render.js this._renderString_renderTag
         try {
-            result = replacePromptStrings(result);
-
-            // {@dice .. }, {@damage ..}{@hit ..}, {@d20 ..}, {@initiative ...},
-            // {@scaledice..}, {@scaledamage..}
-            result = replaceWithDiceRoller(result);
-
-            result = chancePattern.matcher(result).replaceAll((match) -> {
-                // "Chance tags; similar to dice roller tags, but output success/failure.
-                // {@chance 50}; {@chance 50|display text}; {@chance 50|display text|rolled by
-                // name};
-                // {@chance 50|display text|rolled by name|on success text};
-                // {@chance 50|display text|rolled by name|on success text|on failure text}.",
-                String[] parts = match.group(1).split("\\|");
-                return parts.length > 1
-                        ? parts[1]
-                        : parts[0] + " percent";
-            });
-
-            result = abilitySavePattern.matcher(result).replaceAll(this::replaceSkillOrAbility);
-            result = skillCheckPattern.matcher(result).replaceAll(this::replaceSkillCheck);
-            result = savingThrowPattern.matcher(result).replaceAll(this::replaceSavingThrow);
-            result = actSaveFailPattern.matcher(result).replaceAll(this::replaceActSaveFail);
-            result = actResponse.matcher(result).replaceAll((match) -> {
-                // {@actResponse}
-                // {@actResponse d}*Wisdom
-                // textStack[0] += `<i>Response${text.includes("d") ? "\u2014" : ":"}</i>`;
-                String param = match.group(1);
-                // use underscores here, it often bumps directly against other italic text
-                return "_Response%s_".formatted(param != null && param.contains("d") ? "—" : ":");
-            });
-
-            result = superscriptCitationPattern.matcher(result).replaceAll((match) -> {
-                // {@sup {@cite Casting Times|FleeMortals|A}}
-                // {@sup whatever}
-                // {@cite Casting Times|FleeMortals|A}
-                // {@cite Casting Times|FleeMortals|{@sup A}}
-                if (match.group(1).equals("sup")) {
-                    String text = replaceText(match.group(2));
-                    if (text.startsWith("[^") || text.startsWith("^[")) {
-                        // do not put citations in superscript (obsidian/markdown will do it)
-                        return text;
-                    }
-                    return "<sup>" + text + "</sup>";
-                }
-                return handleCitation(match.group(2));
-            });
-
-            result = homebrewPattern.matcher(result).replaceAll((match) -> {
-                // {@homebrew changes|modifications}, {@homebrew additions} or {@homebrew
-                // |removals}
-                String s = match.group(1);
-                int pos = s.indexOf('|');
-                if (pos == 0) { // removal
-                    return "[...] ^[The following text has been removed with this homebrew: " + s.substring(1) + "]";
-                } else if (pos < 0) { // addition
-                    return s + " ^[This is a homebrew addition]";
-                }
-                String oldText = s.substring(0, pos);
-                String newText = s.substring(pos + 1);
-
-                return newText + " ^[This is a homebrew addition, replacing the following: " + oldText + "]";
-            });
-
-            result = linkTo5eImgRepo.matcher(result).replaceAll((match) -> {
-                // External links to materials in the 5eTools image repo (usually pdf):
-                // {@5etoolsImg Players Handbook Cover|covers/PHB.webp}
-                // const fauxEntry = {
-                //     type: "link",
-                //     href: {
-                //         type: "external",
-                //         url: UrlUtil.link(this.getMediaUrl("img", page)),
-                //     },
-                //     text: displayText,
-                // };
-                String orig = match.group(0);
-                if (!orig.contains("|")) {
-                    return orig;
-                }
-
-                String[] parts = match.group(1).split("\\|");
-                String imgRepo = TtrpgConfig.getConstant(TtrpgConfig.DEFAULT_IMG_ROOT);
-                String url = ImageRef.Builder.fixUrl(imgRepo + (imgRepo.endsWith("/") ? "" : "/") + parts[1]);
-
-                return "[%s](%s)".formatted(parts[0], url);
-            });
+            return TagReplacements.replace(this, input, nested);
+        } catch (IllegalArgumentException e) {
+            tui().errorf(e, "Failure replacing text: %s", e.getMessage());
+        }
+        return input;
+    }
 
-            result = linkifyPattern.matcher(result)
-                    .replaceAll(this::linkify);
+    default String replaceChance(MatchResult match) {
+        // "Chance tags; similar to dice roller tags, but output success/failure.
+        // {@chance 50}; {@chance 50|display text}; {@chance 50|display text|rolled by
+        // name};
+        // {@chance 50|display text|rolled by name|on success text};
+        // {@chance 50|display text|rolled by name|on success text|on failure text}.",
+        String[] parts = match.group(1).split("\\|");
+        return parts.length > 1
+                ? parts[1]
+                : parts[0] + " percent";
+    }
+
+    default String replaceActResponse(MatchResult match) {
+        // {@actResponse}
+        // {@actResponse d}*Wisdom
+        // textStack[0] += `<i>Response${text.includes("d") ? "\u2014" : ":"}</i>`;
+        String param = match.group(1);
+        // use underscores here, it often bumps directly against other italic text
+        return "_Response%s_".formatted(param != null && param.contains("d") ? "—" : ":");
+    }
+
+    default String replaceSuperscriptCitation(MatchResult match) {
+        // {@sup {@cite Casting Times|FleeMortals|A}}
+        // {@sup whatever}
+        // {@cite Casting Times|FleeMortals|A}
+        // {@cite Casting Times|FleeMortals|{@sup A}}
+        if (match.group(1).equals("sup")) {
+            String text = replaceText(match.group(2));
+            if (text.startsWith("[^") || text.startsWith("^[")) {
+                // do not put citations in superscript (obsidian/markdown will do it)
+                return text;
+            }
+            return "<sup>" + text + "</sup>";
+        }
+        return handleCitation(match.group(2));
+    }
+
+    default String replaceHomebrew(MatchResult match) {
+        // {@homebrew changes|modifications}, {@homebrew additions} or {@homebrew
+        // |removals}
+        String s = match.group(1);
+        int pos = s.indexOf('|');
+        if (pos == 0) { // removal
+            return "[...] ^[The following text has been removed with this homebrew: " + s.substring(1) + "]";
+        } else if (pos < 0) { // addition
+            return s + " ^[This is a homebrew addition]";
+        }
+        String oldText = s.substring(0, pos);
+        String newText = s.substring(pos + 1);
+
+        return newText + " ^[This is a homebrew addition, replacing the following: " + oldText + "]";
+    }
+
+    default String linkTo5eImgRepo(MatchResult match) {
+        // External links to materials in the 5eTools image repo (usually pdf):
+        // {@5etoolsImg Players Handbook Cover|covers/PHB.webp}
+        // const fauxEntry = {
+        //     type: "link",
+        //     href: {
+        //         type: "external",
+        //         url: UrlUtil.link(this.getMediaUrl("img", page)),
+        //     },
+        //     text: displayText,
+        // };
+        String orig = match.group(0);
+        if (!orig.contains("|")) {
+            return orig;
+        }
 
-            result = optionalFeaturesFilter.matcher(result)
-                    .replaceAll(this::linkifyOptionalFeatureType);
+        String[] parts = match.group(1).split("\\|");
+        String imgRepo = TtrpgConfig.getConstant(TtrpgConfig.DEFAULT_IMG_ROOT);
+        String url = ImageRef.Builder.fixUrl(imgRepo + (imgRepo.endsWith("/") ? "" : "/") + parts[1]);
 
-            result = quickRefPattern.matcher(result).replaceAll((match) -> {
-                String[] parts = match.group(1).split("\\|");
-                if (parts.length > 4) {
-                    return parts[4];
-                }
-                return parts[0];
-            });
-
-            result = fontPattern.matcher(result).replaceAll((match) -> {
-                String[] parts = match.group(1).split("\\|");
-                String fontFamily = Tools5eSources.getFontReference(parts[1]);
-                if (fontFamily != null) {
-                    return "<span style=\"font-family: %s\">%s</span>".formatted(
-                            fontFamily, parts[0]);
-                }
-                return parts[0];
-            });
-
-            result = attackPattern.matcher(result).replaceAll((match) -> {
-                List<String> type = new ArrayList<>();
-                String method = "";
-                // render.js Renderer.attackTagToFull
-                // const ptType = tags.includes("m") ? "Melee " : tags.includes("r") ? "Ranged "
-                // : tags.includes("g") ? "Magical " : tags.includes("a") ? "Area " : "";
-                // const ptMethod = tags.includes("w") ? "Weapon " : tags.includes("s") ? "Spell
-                // " : tags.includes("p") ? "Power " : "";
-                if (match.group(1).contains("m")) {
-                    type.add("Melee ");
-                }
-                if (match.group(1).contains("r")) {
-                    type.add("Ranged ");
-                }
-                if (match.group(1).contains("g")) {
-                    type.add("Magical ");
-                }
-                if (match.group(1).contains("a")) {
-                    type.add("Area ");
-                }
+        return "[%s](%s)".formatted(parts[0], url);
+    }
 
-                if (match.group(1).contains("w")) {
-                    method = "Weapon ";
-                } else if (match.group(1).contains("s")) {
-                    method = "Spell ";
-                } else if (match.group(1).contains("p")) {
-                    method = "Power ";
-                }
+    default String replaceQuickRef(MatchResult match) {
+        String[] parts = match.group(1).split("\\|");
+        if (parts.length > 4) {
+            return parts[4];
+        }
+        return parts[0];
+    }
 
-                if (method.isBlank()) {
-                    return String.format("*%sAttack Roll:*", joinConjunct(", ", " or ", type));
-                } else {
-                    return String.format("*%s%sAttack:*", joinConjunct(", ", " or ", type), method);
-                }
-            });
-
-            try {
-                result = result
-                        // "Internal links: {@5etools This Is Your Life|lifegen.html}",
-                        // "External links: {@link https://discord.gg/5etools} or {@link
-                        // Discord|https://discord.gg/5etools}"
-                        .replaceAll("\\{@link ([^}|]+)\\|([^}]+)}", "$1 ($2)") // this must come first
-                        .replaceAll("\\{@link ([^}|]+)}", "$1") // this must come first
-                        .replaceAll("\\{@5etools ([^}|]+)\\|?[^}]*}", "$1")
-                        .replaceAll("\\{@loader ([^}|]+)\\|([^}]+)}", "$1 ^[$2]")
-                        .replaceAll("\\{@area ([^|}]+)\\|?[^}]*}", "$1")
-                        .replaceAll("\\{@vehupgrade ([^|}]+)\\|?[^}]*}", "$1") // TODO: vehicle upgrade type
-                        .replaceAll("\\{@dc ([^}]+)}", "DC $1")
-                        .replaceAll("\\{@recharge ([^}]+?)}", "(Recharge $1-6)")
-                        .replaceAll("\\{@recharge}", "(Recharge 6)")
-                        .replaceAll("\\{@coinflip ([^|}]+)\\|?[^}]*}", "$1")
-                        .replaceAll("\\{@coinflip}", "flip a coin")
-                        .replaceAll("\\{@filter ([^|}]+)\\|?[^}]*}", "$1")
-                        .replaceAll("\\{@boon ([^|}]+)\\|([^|}]+)\\|[^|}]*}", "$2")
-                        .replaceAll("\\{@boon ([^|}]+)\\|[^}]*}", "$1")
-                        .replaceAll("\\{@boon ([^|}]+)}", "$1")
-                        .replaceAll("\\{@charoption ([^|}]+)\\|([^|}]+)\\|[^|}]*}", "$2")
-                        .replaceAll("\\{@charoption ([^|}]+)\\|[^}]*}", "$1")
-                        .replaceAll("\\{@charoption ([^|}]+)}", "$1")
-                        .replaceAll("\\{@recipe ([^|}]+)\\|([^|}]+)\\|[^|}]*}", "$2")
-                        .replaceAll("\\{@recipe ([^|}]+)\\|[^}]*}", "$1")
-                        .replaceAll("\\{@recipe ([^|}]+)}", "$1")
-                        .replaceAll("\\{@cult ([^|}]+)\\|([^|}]+)\\|[^|}]*}", "$2")
-                        .replaceAll("\\{@cult ([^|}]+)\\|[^}]*}", "$1")
-                        .replaceAll("\\{@cult ([^|}]+)}", "$1")
-                        .replaceAll("\\{@language ([^|}]+)\\|?[^}]*}", "$1")
-                        .replaceAll("\\{@book ([^}|]+)\\|?[^}]*}", "\"$1\"")
-                        .replaceAll("\\{@h}", "*Hit:* ") // render.js Renderer.tag
-                        .replaceAll("\\{@m}", "*Miss:* ")
-                        .replaceAll("\\{@hom}", "*Hit or Miss:* ")// render.js Renderer.tag
-                        .replaceAll("\\{@actSaveSuccess}", "*Success:*") // render.js Renderer.tag
-                        .replaceAll("\\{@actSaveSuccessOrFail}", "*Failure or Success:*") // render.js Renderer.tag
-                        .replaceAll("\\{@actResponse}", "Response:") // render.js Renderer.tag
-                        .replaceAll("\\{@actTrigger}", "Trigger:") // render.js Renderer.tag
-                        .replaceAll("\\{@spell\\s*}", "") // error in homebrew
-                        .replaceAll("\\{@color ([^|}]+)\\|?[^}]*}", "$1")
-                        .replaceAll("\\{@style ([^|}]+)\\|?[^}]*}", "$1")
-                        .replaceAll("\\{@b ([^}]+?)}", "**$1**")
-                        .replaceAll("\\{@bold ([^}]+?)}", "**$1**")
-                        .replaceAll("\\{@c ([^}]+?)}", "$1")
-                        .replaceAll("\\{@center ([^}]+?)}", "$1")
-                        .replaceAll("\\{@i ([^}]+?)}", "*$1*")
-                        .replaceAll("\\{@italic ([^}]+)}", "*$1*")
-                        .replaceAll("\\{@s ([^}]+?)}", "~~$1~~")
-                        .replaceAll("\\{@strike ([^}]+)}", "~~$1~~")
-                        .replaceAll("\\{@u ([^}]+?)}", "_$1_")
-                        .replaceAll("\\{@underline ([^}]+?)}", "_$1_")
-                        .replaceAll("\\{@comic ([^}]+?)}", "$1")
-                        .replaceAll("\\{@comicH1 ([^}]+?)}", "$1")
-                        .replaceAll("\\{@comicH2 ([^}]+?)}", "$1")
-                        .replaceAll("\\{@comicH3 ([^}]+?)}", "$1")
-                        .replaceAll("\\{@comicH4 ([^}]+?)}", "$1")
-                        .replaceAll("\\{@comicNote ([^}]+?)}", "$1")
-                        .replaceAll("\\{@highlight ([^}]+?)}", "==$1==")
-                        .replaceAll("\\{@code ([^}]+?)}", "`$1`")
-                        .replaceAll("\\{@kbd ([^}]+?)}", "`$1`")
-                        .replaceAll("\\{@b}", " ")
-                        .replaceAll("\\{@i}", " ");
-            } catch (Exception e) {
-                tui().errorf(e, "Unable to parse string from %s: %s", getSources().getKey(), input);
-            }
+    default String replaceFont(MatchResult match) {
+        String[] parts = match.group(1).split("\\|");
+        String fontFamily = Tools5eSources.getFontReference(parts[1]);
+        if (fontFamily != null) {
+            return "<span style=\"font-family: %s\">%s</span>".formatted(
+                    fontFamily, parts[0]);
+        }
+        return parts[0];
+    }
+
+    default String replaceAttack(MatchResult match) {
+        List<String> type = new ArrayList<>();
+        String method = "";
+        // render.js Renderer.attackTagToFull
+        // const ptType = tags.includes("m") ? "Melee " : tags.includes("r") ? "Ranged "
+        // : tags.includes("g") ? "Magical " : tags.includes("a") ? "Area " : "";
+        // const ptMethod = tags.includes("w") ? "Weapon " : tags.includes("s") ? "Spell
+        // " : tags.includes("p") ? "Power " : "";
+        if (match.group(1).contains("m")) {
+            type.add("Melee ");
+        }
+        if (match.group(1).contains("r")) {
+            type.add("Ranged ");
+        }
+        if (match.group(1).contains("g")) {
+            type.add("Magical ");
+        }
+        if (match.group(1).contains("a")) {
+            type.add("Area ");
+        }
 
-            result = footnotePattern.matcher(result).replaceAll((match) -> {
-                // {@footnote directly in text|This is primarily for homebrew purposes, as the
-                // official texts (so far) avoid using footnotes},
-                // {@footnote optional reference information|This is the footnote. References
-                // are free text.|Footnote 1, page 20}.",
-                // We're converting these to _inline_ markdown footnotes, as numbering is
-                // difficult to track
-                String[] parts = match.group(1).split("\\|");
-                if (parts[0].contains("<sup>")) {
-                    // This already assumes what the footnote name will be
-                    // TODO: Note content is lost on this path at the moment
-                    return parts[0];
-                }
-                if (parts.length > 2) {
-                    return "%s ^[%s, _%s_]".formatted(parts[0], parts[1], parts[2]);
-                }
-                return "%s ^[%s]".formatted(parts[0], parts[1]);
-            });
-
-            result = notePattern.matcher(result).replaceAll((match) -> {
-                return switch (match.group(1)) {
-                    case "note" -> {
-                        // {@note This is a note}
-                        if (nested) {
-                            yield "<span class='note'>**Note:** " + match.group(2).trim() + "</span>";
-                        } else {
-                            List<String> text = new ArrayList<>();
-                            text.add("> [!note]");
-                            for (String line : match.group(2).split("\n")) {
-                                text.add("> " + line);
-                            }
-                            yield String.join("\n", text);
-                        }
-                    }
-                    case "tip" -> {
-                        // {@tip tooltip tags|a note}
-                        String[] parts = match.group(2).split("\\|");
-                        yield "<span class='tip' title='%s'>%s</span>".formatted(parts[1], parts[0]);
-                    }
-                    default -> {
-                        yield match.group(0);
-                    }
-                };
-            });
+        if (match.group(1).contains("w")) {
+            method = "Weapon ";
+        } else if (match.group(1).contains("s")) {
+            method = "Spell ";
+        } else if (match.group(1).contains("p")) {
+            method = "Power ";
+        }
 
-            // after other replacements
-            return result.replaceAll("\\{@adventure ([^|}]+)\\|[^}]*}", "$1");
+        if (method.isBlank()) {
+            return String.format("*%sAttack Roll:*", joinConjunct(", ", " or ", type));
+        } else {
+            return String.format("*%s%sAttack:*", joinConjunct(", ", " or ", type), method);
+        }
+    }
 
-        } catch (IllegalArgumentException e) {
-            tui().errorf(e, "Failure replacing text: %s", e.getMessage());
+    default String replaceFootnote(MatchResult match) {
+        // {@footnote directly in text|This is primarily for homebrew purposes, as the
+        // official texts (so far) avoid using footnotes},
+        // {@footnote optional reference information|This is the footnote. References
+        // are free text.|Footnote 1, page 20}.",
+        // We're converting these to _inline_ markdown footnotes, as numbering is
+        // difficult to track
+        String[] parts = match.group(1).split("\\|");
+        if (parts[0].contains("<sup>")) {
+            // This already assumes what the footnote name will be
+            // TODO: Note content is lost on this path at the moment
+            return parts[0];
         }
+        if (parts.length > 2) {
+            return "%s ^[%s, _%s_]".formatted(parts[0], parts[1], parts[2]);
+        }
+        return "%s ^[%s]".formatted(parts[0], parts[1]);
+    }
 
-        return input;
+    default String replaceNote(MatchResult match, boolean nested) {
+        return switch (match.group(1)) {
+            case "note" -> {
+                // {@note This is a note}
+                if (nested) {
+                    yield "<span class='note'>**Note:** " + match.group(2).trim() + "</span>";
+                } else {
+                    List<String> text = new ArrayList<>();
+                    text.add("> [!note]");
+                    for (String line : match.group(2).split("\n")) {
+                        text.add("> " + line);
+                    }
+                    yield String.join("\n", text);
+                }
+            }
+            case "tip" -> {
+                // {@tip tooltip tags|a note}
+                String[] parts = match.group(2).split("\\|");
+                yield "<span class='tip' title='%s'>%s</span>".formatted(parts[1], parts[0]);
+            }
+            default -> {
+                yield match.group(0);
+            }
+        };
     }
 
     default String replaceSavingThrow(MatchResult match) {
@@ -2,11 +2,18 @@ package dev.ebullient.convert.tools.dnd5e;
 
 import static dev.ebullient.convert.StringUtil.toTitleCase;
 
+import java.math.BigDecimal;
 import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.BiFunction;
 import java.util.function.Function;
+import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Stream;
 
@@ -39,9 +46,14 @@ public class MagicVariant implements JsonSource {
 
     static final MagicVariant INSTANCE = new MagicVariant();
 
+    /** Parsed value and weight expressions (by expression text) */
+    private final Map<String, CompiledExpression> expressions = new ConcurrentHashMap<>();
+    /** Compiled nameRemove patterns (by pattern text) */
+    private final Map<String, Pattern> patterns = new ConcurrentHashMap<>();
+
     public static List<JsonNode> findSpecificVariants(Tools5eIndex index, Tools5eIndexType type,
             String key, JsonNode genericVariant, Tools5eJsonSourceCopier copier,
-            List<JsonNode> baseItems) {
+            BaseItems baseItems) {
         return INSTANCE.findVariants(index, type, key, genericVariant, copier, baseItems);
     }
 
@@ -116,7 +128,7 @@ public class MagicVariant implements JsonSource {
     /** Update / replace item with variants (where appropriate) */
     private List<JsonNode> findVariants(Tools5eIndex index, Tools5eIndexType type,
             String key, JsonNode genericVariant, Tools5eJsonSourceCopier copier,
-            List<JsonNode> baseItems) {
+            BaseItems baseItems) {
         List<JsonNode> variants = new ArrayList<>();
         // baseItems.forEach((curBaseItem) => {
         //     ....
@@ -148,7 +160,7 @@ public class MagicVariant implements JsonSource {
                 || ItemField.hasFluffImages.booleanOrDefault(genericVariant, false)
                         ? Tools5eIndexType.itemFluff.createKey(genericVariant)
                         : null;
-        for (JsonNode baseItem : baseItems) {
+        for (JsonNode baseItem : baseItems.candidates(MagicItemField.requires.getFrom(genericVariant))) {
             if (ItemField.packContents.existsIn(baseItem)
                     || !editionMatch(baseItem, genericVariant)
                     || !hasRequiredProperty(baseItem, genericVariant)
@@ -276,6 +288,99 @@ public class MagicVariant implements JsonSource {
         return matchesRequiresExcludes(baseItem, excludes, false);
     }
 
+    /**
+     * Base items, indexed by field value (each field is indexed when it is first used).
+     * <p>
+     * A variant's requirements only hold for base items that have the required
+     * field values. Candidates are narrowed using the index before the
+     * requirements (and exclusions) are checked for each of them.
+     * </p>
+     */
+    static class BaseItems {
+        static final BitSet NONE = new BitSet();
+
+        final List<JsonNode> items;
+        /** field name -> field value (or array element) -> positions of items with that value */
+        final Map<String, Map<JsonNode, BitSet>> byField = new ConcurrentHashMap<>();
+
+        BaseItems(List<JsonNode> items) {
+            this.items = items;
+        }
+
+        /**
+         * @param requires generic variant requirements (any of these must match)
+         * @return base items that could meet these requirements (in order)
+         */
+        List<JsonNode> candidates(JsonNode requires) {
+            if (requires == null || !requires.isArray()) {
+                return items;
+            }
+            BitSet result = new BitSet();
+            for (JsonNode req : requires) {
+                BitSet matches = matchingAll(req);
+                if (matches == null) {
+                    return items;
+                }
+                result.or(matches);
+            }
+            return result.stream().mapToObj(items::get).toList();
+        }
+
+        /** @return items that could match every property of this requirement, or null if unknown */
+        private BitSet matchingAll(JsonNode req) {
+            if (!req.isObject()) {
+                return null;
+            }
+            BitSet result = null;
+            for (Entry<String, JsonNode> e : req.properties()) {
+                BitSet matches = matching(e.getKey(), e.getValue());
+                if (matches == null) {
+                    continue; // checked later
+                }
+                if (result == null) {
+                    result = (BitSet) matches.clone();
+                } else {
+                    result.and(matches);
+                }
+            }
+            return result;
+        }
+
+        /** Same result as testProperty for scalar or array values; null for values that are not indexed */
+        private BitSet matching(String field, JsonNode value) {
+            if (value == null || value.isNull() || value.isObject()) {
+                return null;
+            }
+            Map<JsonNode, BitSet> values = byField.computeIfAbsent(field, this::indexField);
+            if (!value.isArray()) {
+                return values.getOrDefault(value, NONE);
+            }
+            BitSet result = new BitSet();
+            for (JsonNode v : value) {
+                result.or(values.getOrDefault(v, NONE));
+            }
+            return result;
+        }
+
+        private Map<JsonNode, BitSet> indexField(String field) {
+            Map<JsonNode, BitSet> values = new HashMap<>();
+            for (int i = 0; i < items.size(); i++) {
+                JsonNode value = items.get(i).get(field);
+                if (value == null || value.isNull()) {
+                    continue;
+                }
+                if (value.isArray()) {
+                    for (JsonNode v : value) {
+                        values.computeIfAbsent(v, k -> new BitSet()).set(i);
+                    }
+                } else {
+                    values.computeIfAbsent(value, k -> new BitSet()).set(i);
+                }
+            }
+            return values;
+        }
+    }
+
     // _createSpecificVariants_isRequiresExcludesMatch
     private boolean matchesRequiresExcludes(JsonNode candidate, JsonNode reqsOrExcludes, boolean matchAll) {
         if (candidate == null || reqsOrExcludes == null) {
@@ -454,7 +559,7 @@ public class MagicVariant implements JsonSource {
                     SourceField.name.setIn(specificVariant, name + property.getValue().asText());
                 }
                 case "nameRemove" -> {
-                    Pattern p = Pattern.compile(property.getValue().asText());
+                    Pattern p = patterns.computeIfAbsent(property.getValue().asText(), Pattern::compile);
                     String name = SourceField.name.getTextOrEmpty(specificVariant);
                     SourceField.name.setIn(specificVariant, p.matcher(name).replaceAll(""));
                 }
@@ -467,24 +572,23 @@ public class MagicVariant implements JsonSource {
                     index().copier.removeFromArr(itemProperty, property.getValue());
                 }
                 case "valueExpression", "weightExpression" -> {
-                    String expr = EXPRESSION.matcher(property.getValue().asText()).replaceAll((match) -> {
-                        JsonNode value = null;
-                        String[] path = match.group(1).split("\\.");
-                        if (path[0].equalsIgnoreCase("baseitem")) {
-                            value = baseItem.get(match.group(1).substring(9));
-                        } else if (path[0].equalsIgnoreCase("item")) {
-                            value = specificVariant.get(match.group(1).substring(5));
-                        } else {
-                            value = specificVariant.get(match.group(1));
-                        }
-                        if (value == null) {
-                            return "";
-                        }
-                        return value.asText();
-                    });
+                    String exprText = property.getValue().asText();
+                    CompiledExpression compiled = expressions.computeIfAbsent(exprText, CompiledExpression::compile);
+                    List<String> values = compiled.placeholders().stream()
+                            .map(placeholder -> {
+                                JsonNode value = placeholderValue(placeholder, baseItem, specificVariant);
+                                return value == null ? "" : value.asText();
+                            })
+                            .toList();
+                    Expression expression = compiled.bind(values);
+                    String expr = expression == null
+                            ? substitute(exprText, values)
+                            : exprText;
                     if (!expr.isBlank()) {
                         try {
-                            Expression expression = new Expression(expr);
+                            if (expression == null) {
+                                expression = new Expression(expr);
+                            }
                             EvaluationValue result = expression.evaluate();
                             if (property.getKey() == "valueExpression") {
                                 IntNode value = IntNode.valueOf(result.getNumberValue().intValue());
@@ -521,6 +625,92 @@ public class MagicVariant implements JsonSource {
         return specificVariant;
     }
 
+    private JsonNode placeholderValue(String placeholder, JsonNode baseItem, JsonNode specificVariant) {
+        String[] path = placeholder.split("\\.");
+        if (path[0].equalsIgnoreCase("baseitem")) {
+            return baseItem.get(placeholder.substring(9));
+        } else if (path[0].equalsIgnoreCase("item")) {
+            return specificVariant.get(placeholder.substring(5));
+        }
+        return specificVariant.get(placeholder);
+    }
+
+    /** Replace {@code [[...]]} placeholders with values (in order) */
+    static String substitute(String exprText, List<String> values) {
+        Iterator<String> value = values.iterator();
+        return EXPRESSION.matcher(exprText).replaceAll(match -> value.next());
+    }
+
+    /**
+     * Value or weight expression, parsed once.
+     * <p>
+     * Each {@code [[...]]} placeholder is replaced by a variable. When all values are plain
+     * (non-negative) numbers, they are bound to the parsed expression, which is then evaluated
+     * as the expression text (with values substituted) would be. Otherwise, or when a placeholder
+     * is adjacent to text that would change how a substituted value is parsed, the expression
+     * text is evaluated with the values substituted.
+     * </p>
+     *
+     * @param placeholders placeholder paths, in order (e.g. {@code baseitem.value})
+     * @param parsed parsed expression with placeholders replaced by variables, or null
+     */
+    record CompiledExpression(List<String> placeholders, Expression parsed) {
+        static final Pattern PLAIN_NUMBER = Pattern.compile("\\d+(\\.\\d+)?");
+
+        static CompiledExpression compile(String exprText) {
+            List<String> placeholders = new ArrayList<>();
+            StringBuilder withVariables = new StringBuilder();
+            boolean bindable = true;
+            Matcher m = EXPRESSION.matcher(exprText);
+            while (m.find()) {
+                bindable &= separated(exprText, m.start() - 1) && separated(exprText, m.end());
+                m.appendReplacement(withVariables, variable(placeholders.size()));
+                placeholders.add(m.group(1));
+            }
+            m.appendTail(withVariables);
+
+            Expression parsed = null;
+            if (bindable) {
+                try {
+                    parsed = new Expression(withVariables.toString());
+                    parsed.validate();
+                } catch (ParseException e) {
+                    parsed = null; // report errors for the substituted expression
+                }
+            }
+            return new CompiledExpression(List.copyOf(placeholders), parsed);
+        }
+
+        /** @return a copy of the parsed expression with values bound, or null if values must be substituted as text */
+        Expression bind(List<String> values) {
+            if (parsed == null || !values.stream().allMatch(v -> PLAIN_NUMBER.matcher(v).matches())) {
+                return null;
+            }
+            try {
+                Expression expression = new Expression(parsed);
+                for (int i = 0; i < values.size(); i++) {
+                    expression.with(variable(i), new BigDecimal(values.get(i)));
+                }
+                return expression;
+            } catch (ParseException e) {
+                return null;
+            }
+        }
+
+        static String variable(int i) {
+            return "_mv" + i;
+        }
+
+        /** A substituted number would not run into the surrounding text */
+        static boolean separated(String text, int i) {
+            if (i < 0 || i >= text.length()) {
+                return true;
+            }
+            char c = text.charAt(i);
+            return !Character.isLetterOrDigit(c) && c != '.' && c != '_' && c != '[' && c != ']';
+        }
+    }
+
     private void resetOrRemove(JsonNodeReader field, JsonNode source, JsonNode target) {
         JsonNode value = field.getFrom(source);
         if (value == null || value.isNull()) {
@@ -5,10 +5,10 @@ import static dev.ebullient.convert.StringUtil.joinConjunct;
 
 import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.stream.Collectors;
@@ -28,7 +28,7 @@ import io.quarkus.runtime.annotations.RegisterForReflection;
 @RegisterForReflection
 public class OptionalFeatureIndex implements JsonSource {
     private final Map<String, OptionalFeatureType> optFeatureIndex = new HashMap<>();
-    private final Set<String> unresolvedFeatureTypes = new HashSet<>();
+    private final Set<String> unresolvedFeatureTypes = ConcurrentHashMap.newKeySet(); // logged once (during conversion)
     private final Tools5eIndex index;
 
     OptionalFeatureIndex(Tools5eIndex index) {
@@ -122,6 +122,7 @@ public class OptionalFeatureIndex implements JsonSource {
 
     public void clear() {
         optFeatureIndex.clear();
+        unresolvedFeatureTypes.clear();
     }
 
     public Map<String, OptionalFeatureType> getMap() {
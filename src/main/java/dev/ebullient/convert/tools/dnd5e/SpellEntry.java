@@ -22,6 +22,9 @@ import dev.ebullient.convert.tools.JsonTextConverter.SourceField;
 import dev.ebullient.convert.tools.dnd5e.SpellIndex.SpellIndexFields;
 
 public class SpellEntry {
+    /** Prefix for spell entry dependencies (see {@link dev.ebullient.convert.io.IncrementalState}) */
+    static final String DEPENDENCY_PREFIX = "spellentry|";
+
     final String level;
     final String spellKey;
     final Map<String, SpellReference> references = new TreeMap<>();
@@ -50,6 +53,11 @@ public class SpellEntry {
         this.school = spellSchool(spellNode);
     }
 
+    /** @return class and expanded list references, as text (to detect changes between incremental runs) */
+    String dependencyText() {
+        return references.values() + "|" + expandedList.values();
+    }
+
     public String getLevelText() {
         return JsonSource.spellLevelToText(level);
     }
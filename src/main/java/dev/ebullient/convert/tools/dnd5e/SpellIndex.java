@@ -1,7 +1,11 @@
 package dev.ebullient.convert.tools.dnd5e;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeMap;
@@ -22,6 +26,10 @@ public class SpellIndex implements JsonSource {
 
     final Map<String, SpellEntry> spellsByKey = new TreeMap<>();
 
+    // Facets used to resolve filters; rebuilt when spells or class lists change
+    private SpellFacets facets = null;
+    private final Map<String, List<SpellEntry>> filterResults = new HashMap<>();
+
     private final Tools5eIndex index;
 
     public SpellIndex(Tools5eIndex index) {
@@ -30,13 +38,17 @@ public class SpellIndex implements JsonSource {
 
     public void clear() {
         spellsByKey.clear();
+        invalidateFacets();
     }
 
-    public SpellEntry getSpellEntry(String key) {
+    public synchronized SpellEntry getSpellEntry(String key) {
         key = index.getAliasOrDefault(key);
         // getOrigin will log unresolved once.
         return index.getOrigin(key) != null
-                ? spellsByKey.computeIfAbsent(key, k -> new SpellEntry(k, index.getOrigin(k)))
+                ? spellsByKey.computeIfAbsent(key, k -> {
+                    invalidateFacets();
+                    return new SpellEntry(k, index.getOrigin(k));
+                })
                 : null;
     }
 
@@ -47,10 +59,17 @@ public class SpellIndex implements JsonSource {
      * @param key
      * @param spellNode
      */
-    public SpellEntry addSpell(String key, JsonNode spellNode) {
+    public synchronized SpellEntry addSpell(String key, JsonNode spellNode) {
         key = index.getAliasOrDefault(key);
-        return spellsByKey.compute(key,
-                (k, v) -> v == null ? new SpellEntry(k, spellNode) : v);
+        return spellsByKey.computeIfAbsent(key, k -> {
+            invalidateFacets();
+            return new SpellEntry(k, spellNode);
+        });
+    }
+
+    private void invalidateFacets() {
+        facets = null;
+        filterResults.clear();
     }
 
     /**
@@ -197,6 +216,9 @@ public class SpellIndex implements JsonSource {
         }
 
         spellEntry.addSpellReference(refKey, variantSource != null);
+        if (refType == Tools5eIndexType.classtype) {
+            invalidateFacets(); // class list of this spell may have changed
+        }
     }
 
     /**
@@ -331,8 +353,15 @@ public class SpellIndex implements JsonSource {
             return;
         }
         tui().logf(Msg.SPELL, "resolveFilter (%2s) %s :: %s", constraint, refererKey, filter);
+        List<SpellEntry> matches = filterResults.computeIfAbsent(filter.asText(), this::findMatchingSpells);
+        for (SpellEntry spell : matches) {
+            spell.addReference(new SpellReference(refererKey, constraint, null, expanded));
+        }
+    }
+
+    private List<SpellEntry> findMatchingSpells(String filter) {
         // level=1;2;3;4;5|class=Cleric;Druid;Wizard|school=D
-        String[] filterParts = filter.asText().split("\\|");
+        String[] filterParts = filter.split("\\|");
         FilterConditions filterConditions = new FilterConditions();
 
         for (String f : filterParts) {
@@ -362,11 +391,10 @@ public class SpellIndex implements JsonSource {
                 }
             }
         }
-        for (SpellEntry spell : spellsByKey.values()) {
-            if (filterConditions.matchAll(spell)) {
-                spell.addReference(new SpellReference(refererKey, constraint, null, expanded));
-            }
+        if (facets == null) {
+            facets = new SpellFacets(spellsByKey.values());
         }
+        return facets.matchAll(filterConditions);
     }
 
     /**
@@ -444,45 +472,88 @@ public class SpellIndex implements JsonSource {
                     .map(x -> x.toLowerCase())
                     .collect(Collectors.toSet());
         }
+    }
 
-        boolean matchAll(SpellEntry spell) {
-            Tools5eSources spellSources = Tools5eSources.findSources(spell.spellNode);
-            return testClasses(spell)
-                    && testLevels(spell)
-                    && testSchools(spell)
-                    && testSources(spell, spellSources)
-                    && testSpellAttack(spell)
-                    && testSpellComponents(spell);
-        }
-
-        private boolean testClasses(SpellEntry spell) {
-            return classes.isEmpty() || classes.stream().anyMatch(x -> spell.inClassList(x));
-        }
-
-        private boolean testLevels(SpellEntry spell) {
-            return levels.isEmpty() || levels.contains(spell.level);
-        }
-
-        private boolean testSchools(SpellEntry spell) {
-            return schools.isEmpty() || schools.contains(spell.school.code());
+    /**
+     * Bitset indexes over spell entries (in key order) for each filter facet.
+     * A filter is resolved by intersecting the bitsets for each condition.
+     * Source conditions are tested with {@link Tools5eSources#includedBy(Set)}
+     * (which also considers SRD / basic rules content and the configured sources)
+     * for the remaining candidates.
+     */
+    static class SpellFacets {
+        final List<SpellEntry> spells;
+        final List<Tools5eSources> sources = new ArrayList<>();
+        final Map<String, BitSet> classes = new HashMap<>();
+        final Map<String, BitSet> levels = new HashMap<>();
+        final Map<String, BitSet> schools = new HashMap<>();
+        final Map<String, BitSet> spellAttack = new HashMap<>();
+        final BitSet ritual = new BitSet();
+
+        SpellFacets(Collection<SpellEntry> entries) {
+            this.spells = List.copyOf(entries);
+            for (int i = 0; i < spells.size(); i++) {
+                SpellEntry spell = spells.get(i);
+                for (String c : spell.classes) {
+                    set(classes, c, i);
+                }
+                set(levels, spell.level, i);
+                if (spell.school != null) {
+                    set(schools, spell.school.code(), i);
+                }
+                sources.add(Tools5eSources.findSources(spell.spellNode));
+                for (String attack : spell.spellAttack) {
+                    set(spellAttack, attack.toUpperCase(), i);
+                }
+                if (spell.ritual) {
+                    ritual.set(i);
+                }
+            }
         }
 
-        private boolean testSources(SpellEntry spell, Tools5eSources spellSources) {
-            return sources.isEmpty() || spellSources.includedBy(sources);
+        List<SpellEntry> matchAll(FilterConditions conditions) {
+            BitSet result = new BitSet();
+            result.set(0, spells.size());
+            and(result, classes, conditions.classes);
+            and(result, levels, conditions.levels);
+            and(result, schools, conditions.schools);
+            if (!conditions.sources.isEmpty()) {
+                for (int i = result.nextSetBit(0); i >= 0; i = result.nextSetBit(i + 1)) {
+                    Tools5eSources spellSources = sources.get(i);
+                    if (spellSources == null || !spellSources.includedBy(conditions.sources)) {
+                        result.clear(i);
+                    }
+                }
+            }
+            and(result, spellAttack, conditions.spellAttack);
+            if (conditions.componentsMisc.contains("ritual")) {
+                result.and(ritual);
+            } else if (!conditions.componentsMisc.isEmpty()) {
+                Tui.instance().logf(Msg.UNKNOWN, "Unknown components & miscellaneous value: %s",
+                        conditions.componentsMisc);
+            }
+            return result.stream()
+                    .mapToObj(spells::get)
+                    .toList();
         }
 
-        private boolean testSpellAttack(SpellEntry spell) {
-            return spellAttack.isEmpty()
-                    || spell.spellAttack.stream().anyMatch(x -> spellAttack.contains(x.toUpperCase()));
+        private static void set(Map<String, BitSet> facet, String value, int i) {
+            facet.computeIfAbsent(value, k -> new BitSet()).set(i);
         }
 
-        private boolean testSpellComponents(SpellEntry spell) {
-            if (componentsMisc.contains("ritual")) {
-                return spell.ritual;
-            } else if (!componentsMisc.isEmpty()) {
-                Tui.instance().logf(Msg.UNKNOWN, "Unknown components & miscellaneous value: %s", componentsMisc);
+        /** Restrict result to spells with any of the given values (if there are any) */
+        private static void and(BitSet result, Map<String, BitSet> facet, Set<String> values) {
+            if (values.isEmpty()) {
+                return;
+            }
+            BitSet any = new BitSet();
+            for (String v : values) {
+                BitSet bits = facet.get(v);
+                if (bits != null) {
+                    any.or(bits);
+                }
             }
-            return true;
+            result.and(any);
         }
     }
 
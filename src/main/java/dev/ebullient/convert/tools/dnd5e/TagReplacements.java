@@ -0,0 +1,154 @@
+package dev.ebullient.convert.tools.dnd5e;
+
+import static dev.ebullient.convert.tools.TagDispatcher.format;
+import static dev.ebullient.convert.tools.TagDispatcher.replaceAll;
+import static dev.ebullient.convert.tools.TagDispatcher.replaceAllByPrefix;
+
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+import dev.ebullient.convert.tools.TagDispatcher;
+import dev.ebullient.convert.tools.TagDispatcher.TagReplacement;
+
+/**
+ * Ordered replacements for 5eTools {@code {@tag ...}} text, dispatched by tag name.
+ * <p>
+ * Replacements are applied in a fixed order (see render.js Renderer.tag and
+ * this._renderString_renderTag). Each replacement declares the tags it handles,
+ * and is skipped unless one of those tags is present in the text.
+ * See {@link TagDispatcher}.
+ * </p>
+ */
+final class TagReplacements {
+    private static final String PROMPT = "#$prompt_number";
+    private static final Pattern adventurePattern = Pattern.compile("\\{@adventure ([^|}]+)\\|[^}]*}");
+
+    static final List<TagReplacement<JsonTextReplacement>> replacements = List.of(
+            // {@dice .. }, {@damage ..}{@hit ..}, {@d20 ..}, {@initiative ...},
+            // {@scaledice..}, {@scaledamage..}
+            new TagReplacement<>(Set.of("h", "hitYourSpellAttack"),
+                    Set.of("dice", "autodice", "damage", "hit", "d20", "initiative", "scaledice", "scaledamage"),
+                    (s, text, nested) -> s.replaceWithDiceRoller(text)),
+            replaceAll(JsonTextReplacement.chancePattern, "chance")
+                    .with((s, m, nested) -> s.replaceChance(m)),
+            replaceAll(JsonTextReplacement.abilitySavePattern, "ability", "savingThrow")
+                    .with((s, m, nested) -> s.replaceSkillOrAbility(m)),
+            replaceAll(JsonTextReplacement.skillCheckPattern, "skillCheck")
+                    .with((s, m, nested) -> s.replaceSkillCheck(m)),
+            replaceAll(JsonTextReplacement.savingThrowPattern, "actSave")
+                    .with((s, m, nested) -> s.replaceSavingThrow(m)),
+            replaceAllByPrefix(JsonTextReplacement.actSaveFailPattern, "actSaveFail")
+                    .with((s, m, nested) -> s.replaceActSaveFail(m)),
+            replaceAllByPrefix(JsonTextReplacement.actResponse, "actResponse")
+                    .with((s, m, nested) -> s.replaceActResponse(m)),
+            replaceAll(JsonTextReplacement.superscriptCitationPattern, "sup", "cite")
+                    .with((s, m, nested) -> s.replaceSuperscriptCitation(m)),
+            replaceAll(JsonTextReplacement.homebrewPattern, "homebrew")
+                    .with((s, m, nested) -> s.replaceHomebrew(m)),
+            replaceAll(JsonTextReplacement.linkTo5eImgRepo, "5etoolsImg")
+                    .with((s, m, nested) -> s.linkTo5eImgRepo(m)),
+            replaceAll(JsonTextReplacement.linkifyPattern, "", "action", "background", "card", "class",
+                    "condition", "creature", "deck", "deity", "disease", "facility", "feat", "hazard", "item",
+                    "itemMastery", "itemProperty", "itemType", "legroup", "object", "psionic", "race", "reward",
+                    "sense", "skill", "spell", "status", "subclass", "table", "variantrule", "vehicle",
+                    "optfeature", "classFeature", "subclassFeature", "trap")
+                    .with((s, m, nested) -> s.linkify(m)),
+            replaceAll(JsonTextReplacement.optionalFeaturesFilter, "filter")
+                    .with((s, m, nested) -> s.linkifyOptionalFeatureType(m)),
+            replaceAll(JsonTextReplacement.quickRefPattern, "quickref")
+                    .with((s, m, nested) -> s.replaceQuickRef(m)),
+            replaceAll(JsonTextReplacement.fontPattern, "font")
+                    .with((s, m, nested) -> s.replaceFont(m)),
+            replaceAll(JsonTextReplacement.attackPattern, "atk", "atkr")
+                    .with((s, m, nested) -> s.replaceAttack(m)),
+            // "Internal links: {@5etools This Is Your Life|lifegen.html}",
+            // "External links: {@link https://discord.gg/5etools} or {@link
+            // Discord|https://discord.gg/5etools}"
+            format("link", "\\{@link ([^}|]+)\\|([^}]+)}", "$1 ($2)"), // this must come first
+            format("link", "\\{@link ([^}|]+)}", "$1"), // this must come first
+            format("5etools", "\\{@5etools ([^}|]+)\\|?[^}]*}", "$1"),
+            format("loader", "\\{@loader ([^}|]+)\\|([^}]+)}", "$1 ^[$2]"),
+            format("area", "\\{@area ([^|}]+)\\|?[^}]*}", "$1"),
+            format("vehupgrade", "\\{@vehupgrade ([^|}]+)\\|?[^}]*}", "$1"), // TODO: vehicle upgrade type
+            format("dc", "\\{@dc ([^}]+)}", "DC $1"),
+            format("recharge", "\\{@recharge ([^}]+?)}", "(Recharge $1-6)"),
+            format("recharge", "\\{@recharge}", "(Recharge 6)"),
+            format("coinflip", "\\{@coinflip ([^|}]+)\\|?[^}]*}", "$1"),
+            format("coinflip", "\\{@coinflip}", "flip a coin"),
+            format("filter", "\\{@filter ([^|}]+)\\|?[^}]*}", "$1"),
+            format("boon", "\\{@boon ([^|}]+)\\|([^|}]+)\\|[^|}]*}", "$2"),
+            format("boon", "\\{@boon ([^|}]+)\\|[^}]*}", "$1"),
+            format("boon", "\\{@boon ([^|}]+)}", "$1"),
+            format("charoption", "\\{@charoption ([^|}]+)\\|([^|}]+)\\|[^|}]*}", "$2"),
+            format("charoption", "\\{@charoption ([^|}]+)\\|[^}]*}", "$1"),
+            format("charoption", "\\{@charoption ([^|}]+)}", "$1"),
+            format("recipe", "\\{@recipe ([^|}]+)\\|([^|}]+)\\|[^|}]*}", "$2"),
+            format("recipe", "\\{@recipe ([^|}]+)\\|[^}]*}", "$1"),
+            format("recipe", "\\{@recipe ([^|}]+)}", "$1"),
+            format("cult", "\\{@cult ([^|}]+)\\|([^|}]+)\\|[^|}]*}", "$2"),
+            format("cult", "\\{@cult ([^|}]+)\\|[^}]*}", "$1"),
+            format("cult", "\\{@cult ([^|}]+)}", "$1"),
+            format("language", "\\{@language ([^|}]+)\\|?[^}]*}", "$1"),
+            format("book", "\\{@book ([^}|]+)\\|?[^}]*}", "\"$1\""),
+            format("h", "\\{@h}", "*Hit:* "), // render.js Renderer.tag
+            format("m", "\\{@m}", "*Miss:* "),
+            format("hom", "\\{@hom}", "*Hit or Miss:* "), // render.js Renderer.tag
+            format("actSaveSuccess", "\\{@actSaveSuccess}", "*Success:*"), // render.js Renderer.tag
+            format("actSaveSuccessOrFail", "\\{@actSaveSuccessOrFail}", "*Failure or Success:*"), // render.js Renderer.tag
+            format("actResponse", "\\{@actResponse}", "Response:"), // render.js Renderer.tag
+            format("actTrigger", "\\{@actTrigger}", "Trigger:"), // render.js Renderer.tag
+            format("spell", "\\{@spell\\s*}", ""), // error in homebrew
+            format("color", "\\{@color ([^|}]+)\\|?[^}]*}", "$1"),
+            format("style", "\\{@style ([^|}]+)\\|?[^}]*}", "$1"),
+            format("b", "\\{@b ([^}]+?)}", "**$1**"),
+            format("bold", "\\{@bold ([^}]+?)}", "**$1**"),
+            format("c", "\\{@c ([^}]+?)}", "$1"),
+            format("center", "\\{@center ([^}]+?)}", "$1"),
+            format("i", "\\{@i ([^}]+?)}", "*$1*"),
+            format("italic", "\\{@italic ([^}]+)}", "*$1*"),
+            format("s", "\\{@s ([^}]+?)}", "~~$1~~"),
+            format("strike", "\\{@strike ([^}]+)}", "~~$1~~"),
+            format("u", "\\{@u ([^}]+?)}", "_$1_"),
+            format("underline", "\\{@underline ([^}]+?)}", "_$1_"),
+            format("comic", "\\{@comic ([^}]+?)}", "$1"),
+            format("comicH1", "\\{@comicH1 ([^}]+?)}", "$1"),
+            format("comicH2", "\\{@comicH2 ([^}]+?)}", "$1"),
+            format("comicH3", "\\{@comicH3 ([^}]+?)}", "$1"),
+            format("comicH4", "\\{@comicH4 ([^}]+?)}", "$1"),
+            format("comicNote", "\\{@comicNote ([^}]+?)}", "$1"),
+            format("highlight", "\\{@highlight ([^}]+?)}", "==$1=="),
+            format("code", "\\{@code ([^}]+?)}", "`$1`"),
+            format("kbd", "\\{@kbd ([^}]+?)}", "`$1`"),
+            format("b", "\\{@b}", " "),
+            format("i", "\\{@i}", " "),
+            replaceAll(JsonTextReplacement.footnotePattern, "footnote")
+                    .with((s, m, nested) -> s.replaceFootnote(m)),
+            replaceAll(JsonTextReplacement.notePattern, "note", "tip")
+                    .with((s, m, nested) -> s.replaceNote(m, nested)),
+            // after other replacements
+            TagDispatcher.tags(Set.of("adventure"),
+                    (s, text, nested) -> adventurePattern.matcher(text).replaceAll("$1")));
+
+    private static final TagDispatcher<JsonTextReplacement> dispatcher = new TagDispatcher<>(replacements,
+            (s, e, input) -> s.tui().errorf(e, "Unable to parse string from %s: %s", s.getSources().getKey(), input));
+
+    private TagReplacements() {
+    }
+
+    /**
+     * Apply tag replacements to text (usually a single {@code {@tag ...}} span).
+     *
+     * @param source the converter (for linking, lookups, and logging)
+     * @param input the text to replace
+     * @param nested true if this span is nested inside another
+     * @return text with tags replaced
+     */
+    static String replace(JsonTextReplacement source, String input, boolean nested) {
+        String result = input;
+        if (result.contains(PROMPT)) {
+            result = source.replacePromptStrings(result);
+        }
+        return dispatcher.replace(source, result, nested);
+    }
+}
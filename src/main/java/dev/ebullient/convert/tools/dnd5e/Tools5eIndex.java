@@ -6,16 +6,20 @@ import java.io.IOException;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.NavigableMap;
 import java.util.Optional;
 import java.util.Set;
 import java.util.TreeMap;
 import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.BiConsumer;
 import java.util.stream.Collectors;
@@ -27,11 +31,14 @@ import com.fasterxml.jackson.databind.node.ObjectNode;
 import dev.ebullient.convert.config.CompendiumConfig;
 import dev.ebullient.convert.config.ReprintBehavior;
 import dev.ebullient.convert.config.TtrpgConfig;
+import dev.ebullient.convert.io.IncrementalState;
 import dev.ebullient.convert.io.MarkdownWriter;
 import dev.ebullient.convert.io.Msg;
 import dev.ebullient.convert.io.Tui;
 import dev.ebullient.convert.qute.SourceAndPage;
 import dev.ebullient.convert.tools.MarkdownConverter;
+import dev.ebullient.convert.tools.ReplacedTextCache;
+import dev.ebullient.convert.tools.SourceRegistry;
 import dev.ebullient.convert.tools.ToolsIndex;
 import dev.ebullient.convert.tools.dnd5e.HomebrewIndex.HomebrewFields;
 import dev.ebullient.convert.tools.dnd5e.HomebrewIndex.HomebrewMetaTypes;
@@ -45,6 +52,9 @@ import dev.ebullient.convert.tools.dnd5e.SpellSchool.CustomSpellSchool;
 public class Tools5eIndex implements JsonSource, ToolsIndex {
     private static Tools5eIndex instance;
 
+    /** Prefix for dependencies on the result of a prefix lookup (see {@link IncrementalState}) */
+    static final String KEYS_DEPENDENCY_PREFIX = "keys|";
+
     public static Tools5eIndex instance() {
         return instance;
     }
@@ -64,24 +74,32 @@ public class Tools5eIndex implements JsonSource, ToolsIndex {
 
     private Boolean isSrdBasicFreeOnly;
     protected final AtomicBoolean prepared = new AtomicBoolean(false);
+    // set at the end of prepare(): after that, entries are converted (concurrently, in parallel mode)
+    private volatile boolean converting = false;
 
     // Initialization
-    private final Map<String, JsonNode> nodeIndex = new TreeMap<>(); // --index
+    private final NavigableMap<String, JsonNode> nodeIndex = new TreeMap<>(); // --index
 
     private final Map<String, Set<JsonNode>> subraceIndex = new HashMap<>(); // --index
-    private final Map<SourceAndPage, List<JsonNode>> tableIndex = new HashMap<>();
+    private final Map<SourceAndPage, Map<String, JsonNode>> tableIndex = new HashMap<>();
 
-    private final Map<String, String> aliases = new TreeMap<>(); // --index
-    private final Map<String, String> reprints = new TreeMap<>(); // --index
-    private final Map<String, String> subraceMap = new TreeMap<>(); // --index
-    private final Map<String, String> nameToLink = new HashMap<>();
+    private final NavigableMap<String, String> aliases = new TreeMap<>(); // --index
+    private final NavigableMap<String, String> reprints = new TreeMap<>(); // --index
+    private final NavigableMap<String, String> subraceMap = new TreeMap<>(); // --index
+    private final Map<String, NameLink> nameToLink = new ConcurrentHashMap<>();
 
     // Class feature, Subclass, and Subclass Feature nonsense
     private final Map<String, Set<String>> classFeatures = new TreeMap<>(); // --index
     private final Map<String, Set<String>> subclassMap = new TreeMap<>(); // --index
 
-    private final Set<String> unresolvableKeys = new TreeSet<>();
-    private final Map<String, SkillOrAbility> resolvedSkills = new HashMap<>();
+    // Keys getOrigin could not resolve: later lookups return null immediately
+    private final Set<String> unresolvableKeys = new ConcurrentSkipListSet<>();
+    // Keys getOriginNoFallback did not find while converting (logged once). Not unresolvable:
+    // getOrigin may still resolve them (by prefix), whichever entry was converted first
+    private final Set<String> missingKeys = new ConcurrentSkipListSet<>();
+    // Built-in skills and abilities (by key). Homebrew skills depend on the sources of the entry.
+    private final Map<String, SkillOrAbility> resolvedSkills = new ConcurrentHashMap<>();
+    private final Map<String, SkillOrAbility> unknownSkills = new ConcurrentHashMap<>();
 
     private final Set<String> srdKeys = new HashSet<>();
 
@@ -91,14 +109,21 @@ public class Tools5eIndex implements JsonSource, ToolsIndex {
 
     final CompendiumConfig config;
     final Tools5eJsonSourceCopier copier = new Tools5eJsonSourceCopier(this);
+    final ReplacedTextCache textCache;
+    final Tools5eSources.Registry sourceRegistry = new Tools5eSources.Registry();
 
     private Map<String, JsonNode> filteredIndex = null;
+    // included elements partitioned by type (sorted by key); built from filteredIndex
+    private final Map<Tools5eIndexType, NavigableMap<String, JsonNode>> filteredByType = new EnumMap<>(
+            Tools5eIndexType.class);
 
     // transitory index state
     volatile HomebrewMetaTypes homebrew = null;
 
     public Tools5eIndex(CompendiumConfig config) {
         this.config = config;
+        // cached text would hide the lookups that incremental conversion records
+        this.textCache = new ReplacedTextCache(config.tui().isIncremental() ? 0 : config.tui().textCacheSize());
         instance = this;
     }
 
@@ -279,7 +304,7 @@ public class Tools5eIndex implements JsonSource, ToolsIndex {
             }
             case table, tableGroup -> {
                 SourceAndPage sp = new SourceAndPage(node);
-                tableIndex.computeIfAbsent(sp, k -> new ArrayList<>()).add(node);
+                tableIndex.computeIfAbsent(sp, k -> new LinkedHashMap<>()).put(key, node);
                 if (type == Tools5eIndexType.tableGroup) {
                     addAlias(key.replace("tablegroup", "table"), key);
                 }
@@ -340,22 +365,21 @@ public class Tools5eIndex implements JsonSource, ToolsIndex {
         tui().verbosef("Resolving copies and linking sources");
 
         // Find remaining/included base items
-        List<JsonNode> baseItems = nodeIndex.values().stream()
+        MagicVariant.BaseItems baseItems = new MagicVariant.BaseItems(nodeIndex.values().stream()
                 .filter(n -> TtrpgValue.indexBaseItem.booleanOrDefault(n, false))
                 .filter(n -> !ItemField.packContents.existsIn(n))
-                .toList();
+                .toList());
+
+        // Resolve all copies first (base entries before the entries that copy them)
+        copier.resolveCopies(nodeIndex, Tools5eIndexType::getTypeFromKey, tui().isParallel());
 
         List<String> keys = new ArrayList<>(nodeIndex.keySet());
         List<Tuple> deities = new ArrayList<>();
 
-        // For each node: handle copies, link sources
+        // For each node: link sources
         for (String key : keys) {
             JsonNode jsonSource = nodeIndex.get(key);
-
-            // check for / manage copies first.
             Tools5eIndexType type = Tools5eIndexType.getTypeFromKey(key);
-            jsonSource = copier.handleCopy(type, jsonSource);
-            nodeIndex.put(key, jsonSource); // update value with resolved/copied node
 
             // Pre-creation of sources..
             switch (type) {
@@ -494,9 +518,19 @@ public class Tools5eIndex implements JsonSource, ToolsIndex {
             filteredIndex.put(k, nodeIndex.get(k));
         });
 
+        // Partition included elements by type for range lookups
+        for (var e : filteredIndex.entrySet()) {
+            Tools5eIndexType type = Tools5eIndexType.getTypeFromKey(e.getKey());
+            if (type != null) {
+                filteredByType.computeIfAbsent(type, t -> new TreeMap<>())
+                        .put(e.getKey(), e.getValue());
+            }
+        }
+
         // And finally, create an index of classes/subclasses/feats for spells
         // based on included sources & avaiable spells.
         spellIndex.buildSpellIndex(filteredIndex.values());
+        converting = true;
     }
 
     private void defineSubraces() {
@@ -548,7 +582,7 @@ public class Tools5eIndex implements JsonSource, ToolsIndex {
         subraceIndex.clear();
     }
 
-    List<JsonNode> findVariants(String key, JsonNode jsonSource, List<JsonNode> baseItems) {
+    List<JsonNode> findVariants(String key, JsonNode jsonSource, MagicVariant.BaseItems baseItems) {
         Tools5eIndexType type = Tools5eIndexType.getTypeFromKey(key);
         if (type == Tools5eIndexType.magicvariant) {
             return MagicVariant.findSpecificVariants(this, type, key, jsonSource, copier, baseItems);
@@ -777,16 +811,17 @@ public class Tools5eIndex implements JsonSource, ToolsIndex {
     }
 
     public List<JsonNode> elementsMatching(Tools5eIndexType type, String middle) {
-        String pattern = String.format("%s\\|%s\\|.*", type, middle)
-                .toLowerCase();
-        return nodesMatching(pattern);
-    }
-
-    private List<JsonNode> nodesMatching(String pattern) {
-        return filteredIndex.entrySet().stream()
-                .filter(e -> e.getKey().matches(pattern))
-                .map(Entry::getValue)
-                .collect(Collectors.toList());
+        NavigableMap<String, JsonNode> typeIndex = filteredByType.get(type);
+        if (typeIndex == null) {
+            return List.of();
+        }
+        String prefix = String.format("%s|%s|", type, middle).toLowerCase();
+        List<JsonNode> result = new ArrayList<>();
+        for (var e : typeIndex.subMap(prefix, true, prefix + Character.MAX_VALUE, false).entrySet()) {
+            IncrementalState.dependsOn(e.getKey(), e.getValue());
+            result.add(e.getValue());
+        }
+        return result;
     }
 
     private void addSrdEntry(String key, JsonNode node) {
@@ -810,6 +845,7 @@ public class Tools5eIndex implements JsonSource, ToolsIndex {
             return;
         }
         unresolvableKeys.remove(key); // this is now resolvable
+        missingKeys.remove(key);
         String old = aliases.putIfAbsent(key, alias);
         if (old != null && !old.equals(alias)) {
             tui().warnf("Oops! Duplicate simple key: %s; old: %s; new: %s", key, old, alias);
@@ -872,7 +908,10 @@ public class Tools5eIndex implements JsonSource, ToolsIndex {
         if (finalKey == null || finalKey.isEmpty()) {
             return null;
         }
-        return filteredIndex.get(finalKey);
+        JsonNode result = filteredIndex.get(finalKey);
+        // inclusion is part of the run fingerprint: depend on the content (see dependencyHash)
+        IncrementalState.dependsOn(finalKey, nodeIndex.get(finalKey));
+        return result;
     }
 
     public Collection<HomebrewMetaTypes> getHomebrewMetaTypes(Tools5eSources activeSources) {
@@ -891,15 +930,9 @@ public class Tools5eIndex implements JsonSource, ToolsIndex {
                 itemProperty = ItemProperty.fromNode(propertyNode);
             }
             if (itemProperty == null) {
-                // try homebrew (normalize from key)
-                String[] parts = key.split("\\|");
-                itemProperty = homebrewIndex.findHomebrewProperty(parts[1], sources);
-
-                if (itemProperty != null) {
-                    // add alias for resolved property
-                    String itemKey = itemProperty.indexKey();
-                    addAlias(key, itemKey);
-                }
+                // try homebrew (normalize from key).
+                // Depends on the sources of the entry being converted: not added as an alias
+                itemProperty = homebrewIndex.findHomebrewProperty(Tools5eIndexKey.of(key).name(), sources);
             }
         }
         return itemProperty;
@@ -917,15 +950,9 @@ public class Tools5eIndex implements JsonSource, ToolsIndex {
                 itemType = ItemType.fromNode(typeNode);
             }
             if (itemType == null) {
-                // try homebrew (normalize from key)
-                String[] parts = key.split("\\|");
-                itemType = homebrewIndex.findHomebrewType(parts[1], sources);
-
-                if (itemType != null) {
-                    // add alias for resolved item type
-                    String itemKey = itemType.indexKey();
-                    addAlias(key, itemKey);
-                }
+                // try homebrew (normalize from key).
+                // Depends on the sources of the entry being converted: not added as an alias
+                itemType = homebrewIndex.findHomebrewType(Tools5eIndexKey.of(key).name(), sources);
             }
         }
         return itemType;
@@ -944,14 +971,9 @@ public class Tools5eIndex implements JsonSource, ToolsIndex {
                 mastery = ItemMastery.fromNode(masteryNode);
             }
             if (mastery == null) {
-                // try homebrew (normalize from key)
-                String[] parts = key.split("\\|");
-                mastery = homebrewIndex.findHomebrewMastery(parts[1], sources);
-                if (mastery != null) {
-                    // add alias for resolved item mastery
-                    String itemKey = mastery.indexKey();
-                    addAlias(key, itemKey);
-                }
+                // try homebrew (normalize from key).
+                // Depends on the sources of the entry being converted: not added as an alias
+                mastery = homebrewIndex.findHomebrewMastery(Tools5eIndexKey.of(key).name(), sources);
             }
         }
         return mastery;
@@ -961,17 +983,17 @@ public class Tools5eIndex implements JsonSource, ToolsIndex {
         if (!isPresent(key)) {
             return null;
         }
-        SkillOrAbility skill = resolvedSkills.computeIfAbsent(key, k -> {
-            SkillOrAbility sk = SkillOrAbility.fromTextValue(key);
-            if (sk == null) {
-                sk = homebrewIndex.findHomebrewSkillOrAbility(key, sources);
-                if (sk == null) {
-                    tui().warnf(Msg.UNKNOWN, "Unknown skill or ability %s in %s", key, sources);
-                    return new CustomSkillOrAbility(key);
-                }
-            }
-            return sk;
-        });
+        SkillOrAbility skill = resolvedSkills.computeIfAbsent(key, SkillOrAbility::fromTextValue);
+        if (skill == null) {
+            // not cached: the result depends on the sources of the entry being converted
+            skill = homebrewIndex.findHomebrewSkillOrAbility(key, sources);
+        }
+        if (skill == null) {
+            skill = unknownSkills.computeIfAbsent(key, k -> {
+                tui().warnf(Msg.UNKNOWN, "Unknown skill or ability %s in %s", key, sources);
+                return new CustomSkillOrAbility(key);
+            });
+        }
         return skill;
     }
 
@@ -999,15 +1021,13 @@ public class Tools5eIndex implements JsonSource, ToolsIndex {
     }
 
     public JsonNode findTable(SourceAndPage sourceAndPage, String rowData) {
-        List<JsonNode> tables = tableIndex.get(sourceAndPage);
+        Map<String, JsonNode> tables = tableIndex.get(sourceAndPage);
         if (tables != null) {
-            if (tables.size() == 1) {
-                Optional<JsonNode> table = matchTable(rowData, tables.get(0));
-                return table.orElse(null);
-            }
-            for (JsonNode table : tables) {
-                Optional<JsonNode> match = matchTable(rowData, table);
+            for (Entry<String, JsonNode> table : tables.entrySet()) {
+                Optional<JsonNode> match = matchTable(rowData, table.getValue());
                 if (match.isPresent()) {
+                    // index key (table or tableGroup) of the matching table: see dependencyHash
+                    IncrementalState.dependsOn(table.getKey(), nodeIndex.get(table.getKey()));
                     return match.get();
                 }
             }
@@ -1025,7 +1045,8 @@ public class Tools5eIndex implements JsonSource, ToolsIndex {
 
     public JsonNode getOriginNoFallback(String finalKey) {
         JsonNode result = nodeIndex.get(finalKey);
-        if (result == null && unresolvableKeys.add(finalKey)) {
+        IncrementalState.dependsOn(finalKey, result);
+        if (result == null && (converting ? missingKeys : unresolvableKeys).add(finalKey)) {
             tui().logf(Msg.UNRESOLVED, "No element found for %s", finalKey);
         }
         return result;
@@ -1033,17 +1054,19 @@ public class Tools5eIndex implements JsonSource, ToolsIndex {
 
     public JsonNode getOrigin(String finalKey) {
         if (unresolvableKeys.contains(finalKey)) {
+            IncrementalState.dependsOn(finalKey, (JsonNode) null);
+            nodeKeysWithPrefix(finalKey);
             return null;
         }
 
         JsonNode result = nodeIndex.get(finalKey);
         if (result == null) {
-            List<String> target = nodeIndex.keySet().stream()
-                    .filter(k -> k.startsWith(finalKey))
-                    .collect(Collectors.toList());
+            IncrementalState.dependsOn(finalKey, result);
+            List<String> target = nodeKeysWithPrefix(finalKey);
             if (target.size() == 1) {
                 String lookup = target.get(0);
                 result = nodeIndex.get(lookup);
+                IncrementalState.dependsOn(lookup, result);
             } else if (target.size() > 1) {
                 List<String> reduce = target.stream()
                         .filter(x -> !x.matches(".*\\|ua[^|]*$"))
@@ -1058,11 +1081,14 @@ public class Tools5eIndex implements JsonSource, ToolsIndex {
                 } else if (reduce.size() == 1) {
                     String lookup = reduce.get(0);
                     result = nodeIndex.get(lookup);
+                    IncrementalState.dependsOn(lookup, result);
                 }
             }
             if (result == null && unresolvableKeys.add(finalKey)) {
                 tui().logf(Msg.UNRESOLVED, "No element found for %s", finalKey);
             }
+        } else {
+            IncrementalState.dependsOn(finalKey, result);
         }
         return result;
     }
@@ -1070,37 +1096,29 @@ public class Tools5eIndex implements JsonSource, ToolsIndex {
     public String linkifyByName(Tools5eIndexType type, String name) {
         String prefix = String.format("%s|%s|", type, name).toLowerCase();
 
-        return nameToLink.computeIfAbsent(prefix, p -> {
+        NameLink resolved = nameToLink.computeIfAbsent(prefix, p -> {
             // Akin to getAliasOrDefault, but we have to filter by prefix
             List<String> target = List.of();
 
             if (type == Tools5eIndexType.subrace || type == Tools5eIndexType.race) {
-                target = subraceMap.keySet().stream()
-                        .filter(k -> k.startsWith(prefix))
-                        .collect(Collectors.toList());
+                target = keysWithPrefix(subraceMap, prefix);
             }
 
             if (target.isEmpty()) {
-                target = reprints.keySet().stream()
-                        .filter(k -> k.startsWith(prefix))
-                        .collect(Collectors.toList());
+                target = keysWithPrefix(reprints, prefix);
             }
 
             if (target.isEmpty()) {
-                target = aliases.keySet().stream()
-                        .filter(k -> k.startsWith(prefix))
-                        .collect(Collectors.toList());
+                target = keysWithPrefix(aliases, prefix);
             }
 
             if (target.isEmpty()) {
-                target = nodeIndex.keySet().stream()
-                        .filter(k -> k.startsWith(prefix))
-                        .collect(Collectors.toList());
+                target = keysWithPrefix(nodeIndex, prefix);
             }
 
             if (target.isEmpty()) {
                 tui().debugf(Msg.UNRESOLVED, "linkifyByName: unresolved element for \"%s\" using [%s]", name, prefix);
-                return name;
+                return new NameLink(null, name);
             } else if (target.size() > 1) {
                 List<String> reduce = target.stream()
                         .filter(x -> !x.matches(".*\\|ua[^|]*$"))
@@ -1111,7 +1129,7 @@ public class Tools5eIndex implements JsonSource, ToolsIndex {
                 if (reduce.size() > 1) {
                     tui().debugf(Msg.MULTIPLE, "Found several elements for %s using [%s]: %s",
                             name, prefix, target);
-                    return name;
+                    return new NameLink(null, name);
                 } else if (reduce.size() == 1) {
                     target = reduce;
                 }
@@ -1119,8 +1137,74 @@ public class Tools5eIndex implements JsonSource, ToolsIndex {
 
             String key = getAliasOrDefault(target.get(0));
             JsonNode node = filteredIndex.get(key); // only included items
-            return node == null ? name : type.linkify(this, node);
+            return new NameLink(key, node == null ? name : type.linkify(this, node));
         });
+        if (resolved.key() != null) {
+            // same content as dependencyHash (the filtered node is null for excluded entries)
+            IncrementalState.dependsOn(resolved.key(), nodeIndex.get(resolved.key()));
+        }
+        if (IncrementalState.isRecording()) {
+            // resolved once (and cached): a new matching entry changes the result
+            nodeKeysWithPrefix(prefix);
+        }
+        return resolved.link();
+    }
+
+    /** Resolved target of a link by name (key is null if the name was not resolved) */
+    record NameLink(String key, String link) {
+    }
+
+    /**
+     * Sorted keys of all entries starting with the given prefix.
+     * The matching keys are a dependency of the entry being converted (if recording):
+     * a new (or removed) entry changes the result of the lookup.
+     */
+    private List<String> nodeKeysWithPrefix(String prefix) {
+        List<String> keys = keysWithPrefix(nodeIndex, prefix);
+        IncrementalState.dependsOn(KEYS_DEPENDENCY_PREFIX + prefix, String.join(";", keys));
+        return keys;
+    }
+
+    /** Sorted keys starting with the given prefix (a range of the sorted map, rather than a scan) */
+    private static List<String> keysWithPrefix(NavigableMap<String, ?> map, String prefix) {
+        return new ArrayList<>(map.subMap(prefix, true, prefix + Character.MAX_VALUE, false).keySet());
+    }
+
+    /**
+     * Fingerprint of everything (other than the content of individual entries)
+     * that can change converted notes. See {@link IncrementalState}.
+     * <p>
+     * This includes the set of included keys: inclusion is checked in many places during
+     * conversion (links, spell lists, class features, ...) and is not recorded per dependency,
+     * so adding or removing an included entry converts all entries again.
+     */
+    public String incrementalFingerprint() {
+        IncrementalState.Fingerprint fp = new IncrementalState.Fingerprint()
+                .add(config.fingerprint())
+                .addAll(new TreeSet<>(filteredIndex.keySet()))
+                .addAll(aliases.entrySet())
+                .addAll(reprints.entrySet())
+                .addAll(subraceMap.entrySet())
+                .addAll(new TreeSet<>(srdKeys))
+                .add(homebrewIndex.fingerprint());
+        // book and adventure metadata is used for source citations
+        nodeIndex.entrySet().stream()
+                .filter(e -> e.getKey().startsWith("book|") || e.getKey().startsWith("adventure|"))
+                .forEach(e -> fp.add(e.getValue()));
+        return fp.toString();
+    }
+
+    /** @return hash of the current content of an (incremental) dependency */
+    public String dependencyHash(String key) {
+        if (key.startsWith(SpellEntry.DEPENDENCY_PREFIX)) {
+            SpellEntry entry = spellIndex.getSpellEntry(key.substring(SpellEntry.DEPENDENCY_PREFIX.length()));
+            return IncrementalState.hash(entry == null ? null : entry.dependencyText());
+        }
+        if (key.startsWith(KEYS_DEPENDENCY_PREFIX)) {
+            return IncrementalState.hash(String.join(";",
+                    keysWithPrefix(nodeIndex, key.substring(KEYS_DEPENDENCY_PREFIX.length()))));
+        }
+        return IncrementalState.hash(nodeIndex.get(key));
     }
 
     public boolean customContentIncluded() {
@@ -1185,7 +1269,9 @@ public class Tools5eIndex implements JsonSource, ToolsIndex {
         allKeys.put("classFeatures", classFeatures);
         allKeys.put("optionalFeatures", optFeatureIndex.getMap());
         allKeys.put("srdKeys", srdKeys);
-        allKeys.put("unresolvableKeys", unresolvableKeys);
+        Set<String> unresolved = new TreeSet<>(unresolvableKeys);
+        unresolved.addAll(missingKeys);
+        allKeys.put("unresolvableKeys", unresolved);
         tui().writeJsonFile(outputFile, allKeys);
     }
 
@@ -1236,6 +1322,11 @@ public class Tools5eIndex implements JsonSource, ToolsIndex {
         return this.config;
     }
 
+    @Override
+    public SourceRegistry<Tools5eSources> sourceRegistry() {
+        return sourceRegistry;
+    }
+
     @Override
     public Tools5eIndex index() {
         return this;
@@ -1276,6 +1367,7 @@ public class Tools5eIndex implements JsonSource, ToolsIndex {
         if (filteredIndex != null) {
             filteredIndex.clear();
         }
+        filteredByType.clear();
 
         aliases.clear();
         reprints.clear();
@@ -1283,13 +1375,15 @@ public class Tools5eIndex implements JsonSource, ToolsIndex {
         nameToLink.clear();
 
         srdKeys.clear();
+        Tools5eIndexKey.clear();
+        textCache.clear();
 
         spellIndex.clear();
         optFeatureIndex.clear();
         homebrewIndex.clear();
 
         // affiliated sources cache, too
-        Tools5eSources.clear();
+        sourceRegistry.clear();
 
         ItemMastery.clear();
         ItemProperty.clear();
@@ -0,0 +1,87 @@
+package dev.ebullient.convert.tools.dnd5e;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Parsed form of a 5e index key (e.g. {@code subclass|name|class|classsource|source}).
+ * <p>
+ * Keys are parsed once and interned: use {@link #of(String)} to get the
+ * shared instance for a key. The string form remains the index key
+ * (used for maps and {@code --index} output).
+ * </p>
+ */
+public final class Tools5eIndexKey {
+    private static final Map<String, Tools5eIndexKey> interned = new ConcurrentHashMap<>();
+
+    private final String key;
+    private final Tools5eIndexType type;
+    private final String name;
+    private final String source;
+
+    private Tools5eIndexKey(String key) {
+        this.key = key;
+        int first = key.indexOf('|');
+        if (first < 0) {
+            this.type = null;
+            this.name = key;
+            this.source = "";
+        } else {
+            this.type = Tools5eIndexType.fromText(key.substring(0, first));
+            int second = key.indexOf('|', first + 1);
+            this.name = second < 0
+                    ? key.substring(first + 1)
+                    : key.substring(first + 1, second);
+            this.source = second < 0
+                    ? ""
+                    : key.substring(key.lastIndexOf('|') + 1);
+        }
+    }
+
+    /** @return the shared, parsed key for this string */
+    public static Tools5eIndexKey of(String key) {
+        return interned.computeIfAbsent(key, Tools5eIndexKey::new);
+    }
+
+    /** Forget interned keys (between runs) */
+    static void clear() {
+        interned.clear();
+    }
+
+    /** @return type of the keyed element, or null if the type is not recognized */
+    public Tools5eIndexType type() {
+        return type;
+    }
+
+    /** @return (lowercase) name segment of the key */
+    public String name() {
+        return name;
+    }
+
+    /** @return (lowercase) source: the last segment of the key, or empty if the key has only a name */
+    public String source() {
+        return source;
+    }
+
+    public String key() {
+        return key;
+    }
+
+    @Override
+    public int hashCode() {
+        return key.hashCode(); // cached by String
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        return obj instanceof Tools5eIndexKey other && key.equals(other.key);
+    }
+
+    @Override
+    public String toString() {
+        return key;
+    }
+}
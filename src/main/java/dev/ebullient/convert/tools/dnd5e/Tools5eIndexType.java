@@ -3,8 +3,9 @@ package dev.ebullient.convert.tools.dnd5e;
 import static dev.ebullient.convert.StringUtil.isPresent;
 import static dev.ebullient.convert.StringUtil.valueOrDefault;
 
+import java.util.HashMap;
+import java.util.Map;
 import java.util.function.BiConsumer;
-import java.util.stream.Stream;
 
 import com.fasterxml.jackson.databind.JsonNode;
 
@@ -98,6 +99,17 @@ public enum Tools5eIndexType implements IndexType, JsonNodeReader {
 
     final String templateName;
 
+    private static final Map<String, Tools5eIndexType> byText = new HashMap<>();
+    static {
+        byText.put("creature", monster);
+        byText.put("optionalfeature", optfeature);
+        byText.put("legroup", legendaryGroup);
+        for (Tools5eIndexType type : values()) {
+            byText.putIfAbsent(type.templateName.toLowerCase(), type);
+            byText.putIfAbsent(type.name().toLowerCase(), type);
+        }
+    }
+
     Tools5eIndexType() {
         this.templateName = this.name();
     }
@@ -111,26 +123,17 @@ public enum Tools5eIndexType implements IndexType, JsonNodeReader {
     }
 
     public static Tools5eIndexType fromText(String name) {
-        if ("creature".equalsIgnoreCase(name)) {
-            return monster;
-        }
-        if ("optionalfeature".equalsIgnoreCase(name)) {
-            return optfeature;
-        }
-        if ("legroup".equalsIgnoreCase(name)) {
-            return legendaryGroup;
+        if (name == null) {
+            return null;
         }
-        return Stream.of(values())
-                .filter(x -> x.templateName.equalsIgnoreCase(name) || x.name().equalsIgnoreCase(name))
-                .findFirst().orElse(null);
+        return byText.get(name.toLowerCase());
     }
 
     public static Tools5eIndexType getTypeFromKey(String key) {
         if (!isPresent(key)) {
             return null;
         }
-        String typeKey = key.substring(0, key.indexOf("|"));
-        return fromText(typeKey);
+        return Tools5eIndexKey.of(key).type();
     }
 
     public static Tools5eIndexType getTypeFromNode(JsonNode node) {
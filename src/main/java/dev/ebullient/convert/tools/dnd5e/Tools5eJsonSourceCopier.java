@@ -2,6 +2,7 @@ package dev.ebullient.convert.tools.dnd5e;
 
 import static dev.ebullient.convert.StringUtil.toTitleCase;
 
+import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
@@ -88,6 +89,17 @@ public class Tools5eJsonSourceCopier extends JsonSourceCopier<Tools5eIndexType>
         return COPY_ENTRY_PROPS;
     }
 
+    @Override
+    protected List<String> copyDependencies(Tools5eIndexType type, JsonNode _copy) {
+        // external (monster) templates are applied along with the copy
+        List<String> result = new ArrayList<>();
+        result.add(type.createKey(_copy));
+        for (JsonNode _template : MetaFields._templates.iterateArrayFrom(_copy)) {
+            result.add(Tools5eIndexType.monsterTemplate.createKey(_template));
+        }
+        return result;
+    }
+
     // render.js: _getMergedSubrace
     public JsonNode mergeSubrace(JsonNode subraceNode, JsonNode raceNode) {
         ObjectNode copyFrom = (ObjectNode) copyNode(subraceNode);
@@ -1,24 +1,31 @@
 package dev.ebullient.convert.tools.dnd5e;
 
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
 import com.fasterxml.jackson.databind.JsonNode;
 
+import dev.ebullient.convert.io.IncrementalState;
+import dev.ebullient.convert.io.IncrementalState.OutputFile;
 import dev.ebullient.convert.io.MarkdownWriter;
+import dev.ebullient.convert.io.MarkdownWriter.FileMap;
 import dev.ebullient.convert.io.Msg;
 import dev.ebullient.convert.qute.QuteBase;
 import dev.ebullient.convert.qute.QuteNote;
 import dev.ebullient.convert.tools.IndexType;
 import dev.ebullient.convert.tools.MarkdownConverter;
+import dev.ebullient.convert.tools.dnd5e.Json2QuteBackground.TraitRows;
 import dev.ebullient.convert.tools.dnd5e.OptionalFeatureIndex.OptionalFeatureType;
 import dev.ebullient.convert.tools.dnd5e.qute.Tools5eQuteNote;
 
 public class Tools5eMarkdownConverter implements MarkdownConverter {
     final Tools5eIndex index;
     final MarkdownWriter writer;
+    IncrementalState incremental;
 
     public Tools5eMarkdownConverter(Tools5eIndex index, MarkdownWriter writer) {
         this.index = index;
@@ -26,7 +33,17 @@ public class Tools5eMarkdownConverter implements MarkdownConverter {
     }
 
     public Tools5eMarkdownConverter writeAll() {
-        return writeFiles(List.of(Tools5eIndexType.values()));
+        if (index.tui().isIncremental()) {
+            incremental = IncrementalState.load(writer.outputPath(), index.incrementalFingerprint(), index.tui());
+        }
+        writeFiles(List.of(Tools5eIndexType.values()));
+        index.textCache.report(index.tui());
+        if (incremental != null) {
+            incremental.save();
+            index.tui().infof(Msg.OK, "Incremental: %d unchanged entries skipped", incremental.skipped());
+            incremental = null;
+        }
+        return this;
     }
 
     public Tools5eMarkdownConverter writeImages() {
@@ -45,9 +62,33 @@ public class Tools5eMarkdownConverter implements MarkdownConverter {
         List<QuteBase> baseRules = new ArrayList<>();
         List<QuteNote> noteCompendium = new ArrayList<>();
         List<QuteNote> noteRules = new ArrayList<>();
+        // Files from a previous (incremental) run for entries that were not converted again
+        List<FileMap> unchangedCompendium = new ArrayList<>();
+        List<FileMap> unchangedRules = new ArrayList<>();
 
         // Some state for combining notes
         Map<Tools5eIndexType, Json2QuteCommon> combinedDocs = new HashMap<>();
+        TraitRows traitRows = new TraitRows();
+
+        /**
+         * Append converted notes (and composed elements) from another queue.
+         * The first composer of each type is kept, as if all elements had been added to it.
+         */
+        void addAll(WritingQueue other) {
+            baseCompendium.addAll(other.baseCompendium);
+            baseRules.addAll(other.baseRules);
+            noteCompendium.addAll(other.noteCompendium);
+            noteRules.addAll(other.noteRules);
+            unchangedCompendium.addAll(other.unchangedCompendium);
+            unchangedRules.addAll(other.unchangedRules);
+            traitRows.addAll(other.traitRows);
+            other.combinedDocs.forEach((type, doc) -> {
+                Json2QuteCommon existing = combinedDocs.putIfAbsent(type, doc);
+                if (existing != null) {
+                    ((Json2QuteCompose) existing).addAll((Json2QuteCompose) doc);
+                }
+            });
+        }
     }
 
     public Tools5eMarkdownConverter writeFiles(List<? extends IndexType> types) {
@@ -59,27 +100,27 @@ public class Tools5eMarkdownConverter implements MarkdownConverter {
         }
         index.tui().verbosef("Converting data: %s", types);
 
-        WritingQueue queue = new WritingQueue();
+        List<Map.Entry<String, JsonNode>> entries = new ArrayList<>();
         for (var entry : index.includedEntries()) {
-            final String key = entry.getKey();
-            final JsonNode jsonSource = entry.getValue();
-
-            Tools5eIndexType nodeType = Tools5eIndexType.getTypeFromKey(key);
+            Tools5eIndexType nodeType = Tools5eIndexType.getTypeFromKey(entry.getKey());
             if (types.contains(Tools5eIndexType.race) && nodeType == Tools5eIndexType.subrace) {
                 // include subrace with race
             } else if (!types.contains(nodeType)) {
                 continue;
             }
-
-            if (nodeType.writeFile()) {
-                writeQuteBaseFiles(nodeType, key, jsonSource, queue);
-            } else if (nodeType.isOutputType() && nodeType.useQuteNote()) {
-                writeQuteNoteFiles(nodeType, key, jsonSource, queue);
-            }
+            entries.add(entry);
         }
 
-        writer.writeFiles(index.compendiumFilePath(), queue.baseCompendium);
-        writer.writeFiles(index.rulesFilePath(), queue.baseRules);
+        // Convert entries (concurrently, in parallel mode), each into its own queue.
+        // Queues are merged in entry order: the result does not depend on scheduling.
+        WritingQueue queue = new WritingQueue();
+        (index.tui().isParallel() ? entries.parallelStream() : entries.stream())
+                .map(this::convert)
+                .forEachOrdered(queue::addAll);
+        queue.traitRows.addToTables();
+
+        writer.writeFiles(index.compendiumFilePath(), queue.baseCompendium, queue.unchangedCompendium);
+        writer.writeFiles(index.rulesFilePath(), queue.baseRules, queue.unchangedRules);
 
         for (Json2QuteCommon value : queue.combinedDocs.values()) {
             append(value.type, value.buildNote(), queue.noteCompendium, queue.noteRules);
@@ -102,6 +143,70 @@ public class Tools5eMarkdownConverter implements MarkdownConverter {
         return this;
     }
 
+    private WritingQueue convert(Map.Entry<String, JsonNode> entry) {
+        final String key = entry.getKey();
+        final JsonNode jsonSource = entry.getValue();
+        final Tools5eIndexType nodeType = Tools5eIndexType.getTypeFromKey(key);
+
+        WritingQueue queue = new WritingQueue();
+        index.cfg().withParseState(() -> Json2QuteBackground.collectRows(queue.traitRows, () -> {
+            if (nodeType.writeFile() && tracked(nodeType)) {
+                writeTrackedFiles(nodeType, key, jsonSource, queue);
+            } else if (nodeType.writeFile()) {
+                writeQuteBaseFiles(nodeType, key, jsonSource, queue);
+            } else if (nodeType.isOutputType() && nodeType.useQuteNote()) {
+                writeQuteNoteFiles(nodeType, key, jsonSource, queue);
+            }
+        }));
+        return queue;
+    }
+
+    /**
+     * Entries that can be skipped by an incremental run.
+     * Classes (subclasses are found by lookup) and backgrounds (which collect
+     * traits for a shared note) are always converted.
+     */
+    private boolean tracked(Tools5eIndexType type) {
+        return incremental != null
+                && type != Tools5eIndexType.classtype
+                && type != Tools5eIndexType.background;
+    }
+
+    private void writeTrackedFiles(Tools5eIndexType type, String key, JsonNode jsonSource, WritingQueue queue) {
+        List<OutputFile> previous = incremental.unchanged(key, index::dependencyHash);
+        if (previous != null) {
+            for (OutputFile f : previous) {
+                (f.rules() ? queue.unchangedRules : queue.unchangedCompendium).add(f.toFileMap());
+            }
+            return;
+        }
+        int compendiumStart = queue.baseCompendium.size();
+        int rulesStart = queue.baseRules.size();
+        List<FileMap> compendiumFiles = new ArrayList<>();
+        List<FileMap> rulesFiles = new ArrayList<>();
+        incremental.begin();
+        try {
+            IncrementalState.dependsOn(key, jsonSource);
+            writeQuteBaseFiles(type, key, jsonSource, queue);
+        } finally {
+            addFileMaps(compendiumFiles, index.compendiumFilePath(), queue.baseCompendium.subList(compendiumStart,
+                    queue.baseCompendium.size()));
+            addFileMaps(rulesFiles, index.rulesFilePath(), queue.baseRules.subList(rulesStart, queue.baseRules.size()));
+            incremental.end(key, compendiumFiles, rulesFiles);
+        }
+    }
+
+    private static void addFileMaps(Collection<FileMap> files, Path basePath,
+            List<QuteBase> converted) {
+        for (QuteBase qs : converted) {
+            FileMap fileMap = MarkdownWriter.fileMap(basePath, qs);
+            files.add(fileMap);
+            for (QuteBase n : qs.inlineNotes()) {
+                files.add(new FileMap(n.title(), n.targetFile(), fileMap.dir, false));
+            }
+        }
+    }
+
     private void writeQuteBaseFiles(Tools5eIndexType type, String key, JsonNode jsonSource, WritingQueue queue) {
         var compendium = queue.baseCompendium;
         var rules = queue.baseRules;
@@ -5,13 +5,14 @@ import static dev.ebullient.convert.StringUtil.isPresent;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import com.fasterxml.jackson.databind.JsonNode;
 
@@ -26,6 +27,7 @@ import dev.ebullient.convert.tools.CompendiumSources;
 import dev.ebullient.convert.tools.IndexType;
 import dev.ebullient.convert.tools.JsonNodeReader;
 import dev.ebullient.convert.tools.JsonTextConverter.SourceField;
+import dev.ebullient.convert.tools.SourceRegistry;
 import dev.ebullient.convert.tools.ToolsIndex.TtrpgValue;
 import dev.ebullient.convert.tools.dnd5e.JsonSource.JsonMediaHref;
 import dev.ebullient.convert.tools.dnd5e.JsonSource.TableFields;
@@ -34,29 +36,64 @@ import io.quarkus.qute.TemplateData;
 @TemplateData
 public class Tools5eSources extends CompendiumSources {
 
-    private static final Map<String, Tools5eSources> keyToSources = new HashMap<>();
-    private static final Map<String, ImageRef> imageSourceToRef = new HashMap<>();
-    private static final Map<String, FontRef> fontSourceToRef = new HashMap<>();
-    private static final Map<String, List<QuteBase>> keyToInlineNotes = new HashMap<>();
-    private static final Set<String> basicRulesKeys = new HashSet<>();
-    private static final Set<String> basicRules2024Keys = new HashSet<>();
+    /**
+     * Sources, images, fonts, and inline notes for a conversion run
+     * (owned by {@link Tools5eIndex}). Safe for concurrent use.
+     */
+    static class Registry extends SourceRegistry<Tools5eSources> {
+        private final Map<String, FontRef> fontSourceToRef = new ConcurrentHashMap<>();
+        private final Map<String, List<QuteBase>> keyToInlineNotes = new ConcurrentHashMap<>();
+        private volatile Set<String> basicRulesKeys;
+        private volatile Set<String> basicRules2024Keys;
+
+        Set<String> basicRulesKeys() {
+            Set<String> keys = basicRulesKeys;
+            if (keys == null || keys.isEmpty()) {
+                basicRulesKeys = keys = globalConfigKeys("basicRules");
+            }
+            return keys;
+        }
 
-    private static boolean isBasicRules(String key, JsonNode jsonElement) {
-        if (basicRulesKeys.isEmpty()) {
-            final JsonNode basicRules = TtrpgConfig.activeGlobalConfig("basicRules");
-            basicRules.forEach(node -> basicRulesKeys.add(node.asText()));
+        Set<String> basicRules2024Keys() {
+            Set<String> keys = basicRules2024Keys;
+            if (keys == null || keys.isEmpty()) {
+                basicRules2024Keys = keys = globalConfigKeys("basicRules2024");
+            }
+            return keys;
+        }
+
+        private static Set<String> globalConfigKeys(String name) {
+            Set<String> keys = new HashSet<>();
+            TtrpgConfig.activeGlobalConfig(name).forEach(node -> keys.add(node.asText()));
+            return Set.copyOf(keys);
+        }
+
+        @Override
+        public void clear() {
+            super.clear();
+            fontSourceToRef.clear();
+            keyToInlineNotes.clear();
+            basicRulesKeys = null;
+            basicRules2024Keys = null;
+        }
+    }
+
+    private static Registry registry() {
+        Tools5eIndex index = Tools5eIndex.instance();
+        if (index == null) {
+            throw new IllegalStateException("Programmer error: sources used without an active index");
         }
+        return index.sourceRegistry;
+    }
+
+    private static boolean isBasicRules(String key, JsonNode jsonElement) {
         return SourceAttributes.basicRules.coerceBooleanOrDefault(jsonElement, false)
-                || basicRulesKeys.contains(key);
+                || registry().basicRulesKeys().contains(key);
     }
 
     private static boolean isBasicRules2024(String key, JsonNode jsonElement) {
-        if (basicRules2024Keys.isEmpty()) {
-            final JsonNode basicRules = TtrpgConfig.activeGlobalConfig("basicRules2024");
-            basicRules.forEach(node -> basicRules2024Keys.add(node.asText()));
-        }
         return SourceAttributes.basicRules2024.coerceBooleanOrDefault(jsonElement, false)
-                || basicRules2024Keys.contains(key);
+                || registry().basicRules2024Keys().contains(key);
     }
 
     public static boolean has2024basicSrd() {
@@ -101,12 +138,12 @@ public class Tools5eSources extends CompendiumSources {
         if (key == null) {
             return null;
         }
-        return keyToSources.get(key);
+        return registry().findSources(key);
     }
 
     public static Tools5eSources findSources(JsonNode node) {
         String key = TtrpgValue.indexKey.getTextOrEmpty(node);
-        return keyToSources.get(key);
+        return registry().findSources(key);
     }
 
     public static Tools5eSources constructSources(String key, JsonNode node) {
@@ -115,7 +152,7 @@ public class Tools5eSources extends CompendiumSources {
         }
         Tools5eIndexType type = Tools5eIndexType.getTypeFromKey(key);
         TtrpgValue.indexKey.setIn(node, key);
-        return keyToSources.computeIfAbsent(key, k -> {
+        return registry().computeIfAbsent(key, k -> {
             Tools5eSources s = new Tools5eSources(type, key, node);
             s.checkKnown();
             return s;
@@ -145,19 +182,19 @@ public class Tools5eSources extends CompendiumSources {
     }
 
     public static Collection<ImageRef> getImages() {
-        return imageSourceToRef.values();
+        return registry().images();
     }
 
     public static Collection<QuteBase> getInlineNotes(String key) {
-        return keyToInlineNotes.getOrDefault(key, List.of());
+        return registry().keyToInlineNotes.getOrDefault(key, List.of());
     }
 
     public void addInlineNote(QuteBase note) {
-        keyToInlineNotes.computeIfAbsent(this.key, k -> new ArrayList<>()).add(note);
+        registry().keyToInlineNotes.computeIfAbsent(this.key, k -> new CopyOnWriteArrayList<>()).add(note);
     }
 
     public static Collection<FontRef> getFonts() {
-        return fontSourceToRef.values().stream()
+        return registry().fontSourceToRef.values().stream()
                 .filter(FontRef::hasTextReference)
                 .toList();
     }
@@ -179,7 +216,7 @@ public class Tools5eSources extends CompendiumSources {
         if (ref == null) {
             Tui.instance().warnf("Font '%s' is invalid, empty, or not found", fontString);
         } else {
-            FontRef previous = fontSourceToRef.putIfAbsent(fontFamily, ref);
+            FontRef previous = registry().fontSourceToRef.putIfAbsent(fontFamily, ref);
             if (previous != null) {
                 Tui.instance().warnf("Font '%s' is already defined as '%s'", fontString, previous);
             }
@@ -193,7 +230,7 @@ public class Tools5eSources extends CompendiumSources {
 
     public static String getFontReference(String fontString) {
         String fontFamily = FontRef.fontFamily(fontString);
-        FontRef ref = fontSourceToRef.get(fontFamily);
+        FontRef ref = registry().fontSourceToRef.get(fontFamily);
         if (ref == null) {
             return null;
         }
@@ -470,15 +507,13 @@ public class Tools5eSources extends CompendiumSources {
     }
 
     public ImageRef buildTokenImageRef(Tools5eIndex index, String sourcePath, Path target, boolean useCompendium) {
-        String key = sourcePath.toString();
-        ImageRef imageRef = new ImageRef.Builder()
+        Path rootFilepath = useCompendium ? index.compendiumFilePath() : index.rulesFilePath();
+        ImageRef.Builder builder = new ImageRef.Builder()
                 .setRelativePath(target)
                 .setInternalPath(sourcePath)
-                .setRootFilepath(useCompendium ? index.compendiumFilePath() : index.rulesFilePath())
-                .setVaultRoot(useCompendium ? index.compendiumVaultRoot() : index.rulesVaultRoot())
-                .build(imageSourceToRef.get(key));
-        imageSourceToRef.putIfAbsent(key, imageRef);
-        return imageRef;
+                .setRootFilepath(rootFilepath)
+                .setVaultRoot(useCompendium ? index.compendiumVaultRoot() : index.rulesVaultRoot());
+        return index.sourceRegistry.image(imageKey(sourcePath, rootFilepath.resolve(target)), builder::build);
     }
 
     public ImageRef buildImageRef(Tools5eIndex index, JsonMediaHref mediaHref, String imageBasePath, boolean useCompendium) {
@@ -521,11 +556,12 @@ public class Tools5eSources extends CompendiumSources {
                 : index.slugify(fileName.substring(0, x)) + fileName.substring(x);
         Path target = Path.of(imageBasePath, "img", fileName);
 
+        Path rootFilepath = useCompendium ? index.compendiumFilePath() : index.rulesFilePath();
         ImageRef.Builder builder = new ImageRef.Builder()
                 .setWidth(mediaHref.width)
                 .setTitle(index.replaceText(altText))
                 .setRelativePath(target)
-                .setRootFilepath(useCompendium ? index.compendiumFilePath() : index.rulesFilePath())
+                .setRootFilepath(rootFilepath)
                 .setVaultRoot(useCompendium ? index.compendiumVaultRoot() : index.rulesVaultRoot());
 
         if (mediaHref.href.path == null) {
@@ -534,9 +570,15 @@ public class Tools5eSources extends CompendiumSources {
             builder.setInternalPath(mediaHref.href.path);
         }
 
-        ImageRef imageRef = builder.build(imageSourceToRef.get(key));
-        imageSourceToRef.putIfAbsent(key, imageRef);
-        return imageRef;
+        return index.sourceRegistry.image(imageKey(key, rootFilepath.resolve(target)), builder::build);
+    }
+
+    /**
+     * The target depends on the entry being converted (type, image directory):
+     * register each target, so the reference does not depend on which entry was converted first.
+     */
+    private static String imageKey(String source, Path targetFile) {
+        return source + "|" + targetFile;
     }
 
     /** Amend optionalfeaturetype with sources of related optional features */
@@ -570,15 +612,6 @@ public class Tools5eSources extends CompendiumSources {
         edition;
     }
 
-    public static void clear() {
-        keyToSources.clear();
-        imageSourceToRef.clear();
-        fontSourceToRef.clear();
-        keyToInlineNotes.clear();
-        basicRulesKeys.clear();
-        basicRules2024Keys.clear();
-    }
-
     public static boolean isClassicEdition(JsonNode baseItem) {
         String edition = SourceAttributes.edition.getTextOrDefault(baseItem, "");
         return "classic".equalsIgnoreCase(edition);
@@ -12,7 +12,7 @@ public abstract class Json2QuteBase implements JsonSource {
     protected final Pf2eSources sources;
 
     public Json2QuteBase(Pf2eIndex index, Pf2eIndexType type, JsonNode rootNode) {
-        this(index, type, rootNode, Pf2eSources.findOrTemporary(type, rootNode));
+        this(index, type, rootNode, Pf2eSources.findOrTemporary(index, type, rootNode));
     }
 
     public Json2QuteBase(Pf2eIndex index, Pf2eIndexType type, JsonNode rootNode, Pf2eSources sources) {
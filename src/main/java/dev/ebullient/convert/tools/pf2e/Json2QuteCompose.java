@@ -71,7 +71,7 @@ public class Json2QuteCompose extends Json2QuteBase {
 
     private void appendElement(JsonNode entry, List<String> text, Tags tags) {
         String key = TtrpgValue.indexKey.getTextOrEmpty(entry);
-        currentSources = Pf2eSources.findSources(key);
+        currentSources = Pf2eSources.findSources(index(), key);
         String name = SourceField.name.getTextOrEmpty(entry);
 
         if (index.keyIsIncluded(key, entry)) {
@@ -104,7 +104,7 @@ public class Json2QuteCompose extends Json2QuteBase {
         text.add("**Spells** " + spells.stream()
                 .map(s -> index().getIncludedNode(s))
                 .sorted(Comparator.comparingInt(n -> Json2QuteSpell.Pf2eSpell.level.intOrDefault(n, 1)))
-                .map(Pf2eSources::findSources)
+                .map(n -> Pf2eSources.findSources(index(), n))
                 .map(s -> linkify(Pf2eIndexType.spell, s.getName() + "|" + s.primarySource()))
                 .collect(Collectors.joining(", ")));
     }
@@ -76,119 +76,33 @@ public interface JsonTextReplacement extends JsonTextConverter<Pf2eIndexType> {
         }
 
         try {
-            String result = input
-                    .replace("#$prompt_number:title=Enter Alert Level$#", "Alert Level")
-                    .replace("#$prompt_number:title=Enter Charisma Modifier$#", "Charisma modifier")
-                    .replace("#$prompt_number:title=Enter Lifestyle Modifier$#", "Charisma modifier")
-                    .replace("#$prompt_number:title=Enter a Modifier$#", "Modifier")
-                    .replace("#$prompt_number:title=Enter a Modifier,default=10$#", "Modifier (default 10)")
-                    .replaceAll("#\\$prompt_number.*default=(.*)\\$#", "$1")
-                    .replace("{@conditoin", "{@condition")
-                    .replace("ffguard", "ff-guard"); // fix typo;
-
-            if (parseState().inList() || parseState().inTable()) {
-                result = result.replaceAll("\\{@sup ([^}]+)}", "[^$1]");
-            } else {
-                result = result.replaceAll("\\{@sup ([^}]+)}", "[$1]: ");
-            }
-
-            result = replaceWithDiceRoller(result); // {@hit ..} and {@d20 ..}
-
-            result = chancePattern.matcher(result)
-                    .replaceAll((match) -> match.group(1) + "% chance");
-
-            result = asPattern.matcher(result)
-                    .replaceAll(this::replaceActionAs);
-
-            result = quickRefPattern.matcher(result)
-                    .replaceAll((match) -> {
-                        String[] parts = match.group(1).split("\\|");
-                        if (parts.length > 4) {
-                            return parts[4];
-                        }
-                        return parts[0];
-                    });
-
-            result = runeItemPattern.matcher(result)
-                    .replaceAll(this::linkifyRuneItem);
-
-            result = result.replaceAll("\\{@lore ", "{@skill ");
-
-            result = Pf2eIndexType.matchPattern.matcher(result)
-                    .replaceAll(this::linkify);
-
-            // "Style tags; {@bold some text to be bolded} (alternative {@b shorthand}),
-            // {@italic some text to be italicised} (alternative {@i shorthand}),
-            // {@underline some text to be underlined} (alternative {@u shorthand}),
-            // {@strike some text to strike-through}, (alternative {@s shorthand}),
-            // {@color color|e40707} tags, {@handwriting handwritten text},
-            // {@sup some superscript,} {@sub some subscript,}
-            // {@center some centered text} {@c with alternative shorthand,}
-            // {@nostyle to escape font formatting} {@n (see below).}}
-            // {@indentFirst You can use @indentFirst to indent the first line of text}
-            // {@indentSubsequent is the counterpart to @indentFirst. }",
-
-            try {
-                result = result
-                        .replace("{@hitYourSpellAttack}", "the summoner's spell attack modifier")
-                        .replaceAll("\\{@link ([^}|]+)\\|([^}]+)}", "$1 ($2)") // this must come first
-                        .replaceAll("\\{@pf2etools ([^}|]+)\\|?[^}]*}", "$1")
-                        .replaceAll("\\{@Pf2eTools ([^}|]+)\\|?[^}]*}", "$1")
-                        // {@footnote directly in text|This is primarily for homebrew purposes, as the official texts (so far) avoid using footnotes},
-                        // {@footnote optional reference information|This is the footnote. References are free text.|Footnote 1, page 20}.",
-                        .replaceAll("\\{@footnote ([^|}]+)\\|([^|}]+)\\|([^}]*)}", "$1 ^[$2, _$3_]")
-                        .replaceAll("\\{@footnote ([^|}]+)\\|([^}]*)}", "$1 ^[$2]")
-                        .replaceAll("\\{@reward ([^|}]+)\\|?[^}]*}", "$1")
-                        .replaceAll("\\{@dc ([^}]+)}", "DC $1")
-                        .replaceAll("\\{@flatDC ([^}]+)}", "$1")
-                        .replaceAll("\\{@recharge ([^}]+?)}", "(Recharge $1-6)")
-                        .replaceAll("\\{@recharge}", "(Recharge 6)")
-                        .replaceAll("\\{@filter ([^|}]+)\\|?[^}]*}", "$1")
-                        .replaceAll("\\{@cult ([^|}]+)\\|([^|}]+)\\|[^|}]*}", "$2")
-                        .replaceAll("\\{@cult ([^|}]+)\\|[^}]*}", "$1")
-                        .replaceAll("\\{@language ([^|}]+)\\|?[^}]*}", "$1")
-                        .replaceAll("\\{@book ([^}|]+)\\|?[^}]*}", "\"$1\"")
-                        .replaceAll("\\{@h}", "Hit: ")
-                        .replaceAll("\\{@c ([^}]+?)}", "$1")
-                        .replaceAll("\\{@center ([^}]+?)}", "$1")
-                        .replaceAll("\\{@s ([^}]+?)}", "$1")
-                        .replaceAll("\\{@strike ([^}]+?)}", "$1")
-                        .replaceAll("\\{@n ([^}]+?)}", "$1")
-                        .replaceAll("\\{@b ([^}]+?)}", "**$1**")
-                        .replaceAll("\\{@B ([^}]+?)}", "**$1**")
-                        .replaceAll("\\{@bold ([^}]+?)}", "**$1**")
-                        .replaceAll("\\{@i ([^}]+?)}", "_$1_")
-                        .replaceAll("\\{@italic ([^}]+)}", "_$1_")
-                        .replaceAll("\\{@indentFirst ([^}]+?)}", "$1")
-                        .replaceAll("\\{@indentSubsequent ([^}]+?)}", "$1");
-            } catch (Exception e) {
-                tui().errorf(e, "Unable to parse string from %s: %s", getSources().getKey(), input);
-            }
-
-            // second pass (nested references)
-            result = Pf2eIndexType.matchPattern.matcher(result)
-                    .replaceAll(this::linkify);
-
-            // note pattern often wraps others. Do this one last.
-            result = notePattern.matcher(result).replaceAll((match) -> {
-                if (nested) {
-                    return "***Note:** " + match.group(2).trim() + "*";
-                } else {
-                    List<String> text = new ArrayList<>();
-                    text.add("> [!pf2-note]");
-                    for (String line : match.group(2).split("\n")) {
-                        text.add("> " + line);
-                    }
-                    return String.join("\n", text);
-                }
-            });
-            return result;
+            return TagReplacements.replace(this, input, nested);
         } catch (IllegalArgumentException e) {
             tui().errorf(e, "Failure replacing text: %s", e.getMessage());
         }
         return input;
     }
 
+    default String replaceQuickRef(MatchResult match) {
+        String[] parts = match.group(1).split("\\|");
+        if (parts.length > 4) {
+            return parts[4];
+        }
+        return parts[0];
+    }
+
+    default String replaceNote(MatchResult match, boolean nested) {
+        if (nested) {
+            return "***Note:** " + match.group(2).trim() + "*";
+        }
+        List<String> text = new ArrayList<>();
+        text.add("> [!pf2-note]");
+        for (String line : match.group(2).split("\n")) {
+            text.add("> " + line);
+        }
+        return String.join("\n", text);
+    }
+
     default String replaceFootnoteReference(MatchResult match) {
         return String.format("[^%s]%s", match.group(1),
                 parseState().inFootnotes() ? ": " : "");
@@ -237,6 +151,11 @@ public interface JsonTextReplacement extends JsonTextConverter<Pf2eIndexType> {
         return linkText;
     }
 
+    /** Link all {@code {@type ...}} references in this text */
+    default String linkifyAll(String text) {
+        return Pf2eIndexType.matchPattern.matcher(text).replaceAll(this::linkify);
+    }
+
     default String linkify(MatchResult match) {
         Pf2eIndexType targetType = Pf2eIndexType.fromText(match.group(1));
         if (targetType == null) {
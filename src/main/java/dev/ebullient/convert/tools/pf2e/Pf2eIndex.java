@@ -22,6 +22,7 @@ import dev.ebullient.convert.config.TtrpgConfig;
 import dev.ebullient.convert.io.MarkdownWriter;
 import dev.ebullient.convert.io.Tui;
 import dev.ebullient.convert.tools.MarkdownConverter;
+import dev.ebullient.convert.tools.SourceRegistry;
 import dev.ebullient.convert.tools.ToolsIndex;
 
 public class Pf2eIndex implements ToolsIndex, JsonSource {
@@ -40,6 +41,7 @@ public class Pf2eIndex implements ToolsIndex, JsonSource {
     private final Map<String, Set<String>> domainToSpells = new TreeMap<>();
 
     final Pf2eJsonSourceCopier copier = new Pf2eJsonSourceCopier(this);
+    private final SourceRegistry<Pf2eSources> sourceRegistry = new SourceRegistry<>();
 
     public Pf2eIndex(CompendiumConfig config) {
         this.config = config;
@@ -211,7 +213,7 @@ public class Pf2eIndex implements ToolsIndex, JsonSource {
                 // check for / manage copies first (creatures, fluff)
                 node = copier.handleCopy(type, node);
             }
-            Pf2eSources sources = Pf2eSources.constructSources(type, node); // pre-construct sources
+            Pf2eSources sources = Pf2eSources.constructSources(this, type, node); // pre-construct sources
 
             if (type == Pf2eIndexType.feat && keyIsIncluded(key, node)) {
                 createArchetypeReference(key, node, sources);
@@ -272,7 +274,7 @@ public class Pf2eIndex implements ToolsIndex, JsonSource {
         if (CORE_RULES_KEY.equals(key)) { // include core rules unless turned off
             return true;
         }
-        Pf2eSources sources = Pf2eSources.findSources(key);
+        Pf2eSources sources = Pf2eSources.findSources(this, key);
         if (config.noSources()) {
             return sources.fromDefaultSource();
         }
@@ -387,6 +389,11 @@ public class Pf2eIndex implements ToolsIndex, JsonSource {
         return this;
     }
 
+    @Override
+    public SourceRegistry<Pf2eSources> sourceRegistry() {
+        return sourceRegistry;
+    }
+
     @Override
     public Pf2eSources getSources() {
         return null;
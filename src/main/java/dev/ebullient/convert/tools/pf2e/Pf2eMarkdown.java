@@ -34,7 +34,7 @@ public class Pf2eMarkdown implements MarkdownConverter {
     @Override
     public Pf2eMarkdown writeImages() {
         index.tui().progressf("Writing images and fonts");
-        index.tui().copyImages(Pf2eSources.getImages());
+        index.tui().copyImages(Pf2eSources.getImages(index));
         return this;
     }
 
@@ -69,11 +69,13 @@ public class Pf2eMarkdown implements MarkdownConverter {
                 continue;
             }
 
-            if (nodeType.isOutputType() && !nodeType.useQuteNote()) {
-                writePf2eQuteBase(nodeType, key, jsonSource, queue);
-            } else if (nodeType.isOutputType() && nodeType.useQuteNote()) {
-                writeNotesAndTables(nodeType, key, jsonSource, queue);
-            }
+            index.cfg().withParseState(() -> {
+                if (nodeType.isOutputType() && !nodeType.useQuteNote()) {
+                    writePf2eQuteBase(nodeType, key, jsonSource, queue);
+                } else if (nodeType.isOutputType() && nodeType.useQuteNote()) {
+                    writeNotesAndTables(nodeType, key, jsonSource, queue);
+                }
+            });
         }
 
         writer.writeFiles(index.compendiumFilePath(), queue.baseCompendium);
@@ -2,8 +2,6 @@ package dev.ebullient.convert.tools.pf2e;
 
 import java.nio.file.Path;
 import java.util.Collection;
-import java.util.HashMap;
-import java.util.Map;
 
 import com.fasterxml.jackson.databind.JsonNode;
 
@@ -17,24 +15,21 @@ import io.quarkus.qute.TemplateData;
 @TemplateData
 public class Pf2eSources extends CompendiumSources {
 
-    private static final Map<String, Pf2eSources> keyToSources = new HashMap<>();
-    private static final Map<String, ImageRef> imageSourceToRef = new HashMap<>();
-
-    public static Pf2eSources findSources(String key) {
-        return keyToSources.get(key);
+    public static Pf2eSources findSources(Pf2eIndex index, String key) {
+        return index.sourceRegistry().findSources(key);
     }
 
-    public static Pf2eSources findSources(JsonNode node) {
+    public static Pf2eSources findSources(Pf2eIndex index, JsonNode node) {
         String key = TtrpgValue.indexKey.getTextOrEmpty(node);
-        return keyToSources.get(key);
+        return index.sourceRegistry().findSources(key);
     }
 
-    public static Pf2eSources constructSources(Pf2eIndexType type, JsonNode node) {
+    public static Pf2eSources constructSources(Pf2eIndex index, Pf2eIndexType type, JsonNode node) {
         if (node == null) {
             throw new IllegalArgumentException("Must pass a JsonNode");
         }
         String key = TtrpgValue.indexKey.getTextOrNull(node);
-        return keyToSources.computeIfAbsent(key, k -> {
+        return index.sourceRegistry().computeIfAbsent(key, k -> {
             Pf2eSources s = new Pf2eSources(type, key, node);
             s.checkKnown();
             return s;
@@ -54,7 +49,7 @@ public class Pf2eSources extends CompendiumSources {
         return new Pf2eSources(Pf2eIndexType.bookReference, key, node);
     }
 
-    public static Pf2eSources findOrTemporary(Pf2eIndexType type, JsonNode node) {
+    public static Pf2eSources findOrTemporary(Pf2eIndex index, Pf2eIndexType type, JsonNode node) {
         if (node == null) {
             throw new IllegalArgumentException("Must pass a JsonNode");
         }
@@ -62,22 +57,20 @@ public class Pf2eSources extends CompendiumSources {
         if (key == null) {
             key = type.createKey(node);
         }
-        Pf2eSources sources = findSources(key);
+        Pf2eSources sources = findSources(index, key);
         return sources == null
                 ? new Pf2eSources(type, key, node)
                 : sources;
     }
 
     public static ImageRef buildStreamImageRef(Pf2eIndex index, String sourcePath, Path relativeTarget, String title) {
-        ImageRef imageRef = new ImageRef.Builder()
+        ImageRef.Builder builder = new ImageRef.Builder()
                 .setStreamSource(sourcePath)
                 .setRelativePath(Path.of("assets").resolve(relativeTarget))
                 .setTitle(index.replaceText(title))
                 .setRootFilepath(index.rulesFilePath())
-                .setVaultRoot(index.rulesVaultRoot())
-                .build(imageSourceToRef.get(sourcePath));
-        imageSourceToRef.putIfAbsent(sourcePath, imageRef);
-        return imageRef;
+                .setVaultRoot(index.rulesVaultRoot());
+        return index.sourceRegistry().image(sourcePath, builder::build);
     }
 
     public static ImageRef buildImageRef(Pf2eIndexType type, Pf2eIndex index, Path sourcePath, String title) {
@@ -87,19 +80,17 @@ public class Pf2eSources extends CompendiumSources {
     public static ImageRef buildImageRef(Pf2eIndexType type, Pf2eIndex index, Path sourcePath, Path relativeTarget,
             String title) {
         String key = sourcePath.toString();
-        ImageRef imageRef = new ImageRef.Builder()
+        ImageRef.Builder builder = new ImageRef.Builder()
                 .setSourcePath(sourcePath)
                 .setRelativePath(Path.of("assets").resolve(relativeTarget))
                 .setRootFilepath(type.getFilePath(index))
                 .setVaultRoot(type.getVaultRoot(index))
-                .setTitle(index.replaceText(title))
-                .build(imageSourceToRef.get(key));
-        imageSourceToRef.putIfAbsent(key, imageRef);
-        return imageRef;
+                .setTitle(index.replaceText(title));
+        return index.sourceRegistry().image(key, builder::build);
     }
 
-    public static Collection<ImageRef> getImages() {
-        return imageSourceToRef.values();
+    public static Collection<ImageRef> getImages(Pf2eIndex index) {
+        return index.sourceRegistry().images();
     }
 
     final Pf2eIndexType type;
@@ -0,0 +1,125 @@
+package dev.ebullient.convert.tools.pf2e;
+
+import static dev.ebullient.convert.tools.TagDispatcher.format;
+import static dev.ebullient.convert.tools.TagDispatcher.replaceAll;
+import static dev.ebullient.convert.tools.TagDispatcher.tags;
+
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import dev.ebullient.convert.tools.TagDispatcher;
+import dev.ebullient.convert.tools.TagDispatcher.TagReplacement;
+
+/**
+ * Ordered replacements for Pf2eTools {@code {@tag ...}} text, dispatched by tag name.
+ * See {@link TagDispatcher}.
+ */
+final class TagReplacements {
+    private static final String PROMPT = "#$prompt_number";
+    private static final Pattern supPattern = Pattern.compile("\\{@sup ([^}]+)}");
+    private static final Pattern lorePattern = Pattern.compile("\\{@lore ");
+
+    /** Tags linked to other notes: template and type names (see {@link Pf2eIndexType#matchPattern}) */
+    private static final Set<String> linkTags = Stream.of(Pf2eIndexType.values())
+            .flatMap(x -> Stream.of(x.templateName, x.name()))
+            .collect(Collectors.toUnmodifiableSet());
+
+    static final List<TagReplacement<JsonTextReplacement>> replacements = List.of(
+            tags(Set.of("sup"), (s, text, nested) -> supPattern.matcher(text)
+                    .replaceAll(s.parseState().inList() || s.parseState().inTable() ? "[^$1]" : "[$1]: ")),
+            // {@hit ..} and {@d20 ..}
+            new TagReplacement<>(Set.of("h", "hitYourSpellAttack"),
+                    Set.of("dice", "autodice", "damage", "hit", "d20", "initiative", "scaledice", "scaledamage"),
+                    (s, text, nested) -> s.replaceWithDiceRoller(text)),
+            replaceAll(JsonTextReplacement.chancePattern, "chance")
+                    .with((s, m, nested) -> m.group(1) + "% chance"),
+            replaceAll(JsonTextReplacement.asPattern, "as")
+                    .with((s, m, nested) -> s.replaceActionAs(m)),
+            replaceAll(JsonTextReplacement.quickRefPattern, "quickref")
+                    .with((s, m, nested) -> s.replaceQuickRef(m)),
+            replaceAll(JsonTextReplacement.runeItemPattern, "runeItem")
+                    .with((s, m, nested) -> s.linkifyRuneItem(m)),
+            tags(Set.of("lore"), (s, text, nested) -> lorePattern.matcher(text).replaceAll("{@skill ")),
+            tags(linkTags, (s, text, nested) -> s.linkifyAll(text)),
+            // "Style tags; {@bold some text to be bolded} (alternative {@b shorthand}),
+            // {@italic some text to be italicised} (alternative {@i shorthand}),
+            // {@underline some text to be underlined} (alternative {@u shorthand}),
+            // {@strike some text to strike-through}, (alternative {@s shorthand}),
+            // {@color color|e40707} tags, {@handwriting handwritten text},
+            // {@sup some superscript,} {@sub some subscript,}
+            // {@center some centered text} {@c with alternative shorthand,}
+            // {@nostyle to escape font formatting} {@n (see below).}}
+            // {@indentFirst You can use @indentFirst to indent the first line of text}
+            // {@indentSubsequent is the counterpart to @indentFirst. }",
+            tags(Set.of("hitYourSpellAttack"), (s, text, nested) -> text
+                    .replace("{@hitYourSpellAttack}", "the summoner's spell attack modifier")),
+            format("link", "\\{@link ([^}|]+)\\|([^}]+)}", "$1 ($2)"), // this must come first
+            format("pf2etools", "\\{@pf2etools ([^}|]+)\\|?[^}]*}", "$1"),
+            format("Pf2eTools", "\\{@Pf2eTools ([^}|]+)\\|?[^}]*}", "$1"),
+            // {@footnote directly in text|This is primarily for homebrew purposes, as the official texts (so far) avoid using footnotes},
+            // {@footnote optional reference information|This is the footnote. References are free text.|Footnote 1, page 20}.",
+            format("footnote", "\\{@footnote ([^|}]+)\\|([^|}]+)\\|([^}]*)}", "$1 ^[$2, _$3_]"),
+            format("footnote", "\\{@footnote ([^|}]+)\\|([^}]*)}", "$1 ^[$2]"),
+            format("reward", "\\{@reward ([^|}]+)\\|?[^}]*}", "$1"),
+            format("dc", "\\{@dc ([^}]+)}", "DC $1"),
+            format("flatDC", "\\{@flatDC ([^}]+)}", "$1"),
+            format("recharge", "\\{@recharge ([^}]+?)}", "(Recharge $1-6)"),
+            format("recharge", "\\{@recharge}", "(Recharge 6)"),
+            format("filter", "\\{@filter ([^|}]+)\\|?[^}]*}", "$1"),
+            format("cult", "\\{@cult ([^|}]+)\\|([^|}]+)\\|[^|}]*}", "$2"),
+            format("cult", "\\{@cult ([^|}]+)\\|[^}]*}", "$1"),
+            format("language", "\\{@language ([^|}]+)\\|?[^}]*}", "$1"),
+            format("book", "\\{@book ([^}|]+)\\|?[^}]*}", "\"$1\""),
+            format("h", "\\{@h}", "Hit: "),
+            format("c", "\\{@c ([^}]+?)}", "$1"),
+            format("center", "\\{@center ([^}]+?)}", "$1"),
+            format("s", "\\{@s ([^}]+?)}", "$1"),
+            format("strike", "\\{@strike ([^}]+?)}", "$1"),
+            format("n", "\\{@n ([^}]+?)}", "$1"),
+            format("b", "\\{@b ([^}]+?)}", "**$1**"),
+            format("B", "\\{@B ([^}]+?)}", "**$1**"),
+            format("bold", "\\{@bold ([^}]+?)}", "**$1**"),
+            format("i", "\\{@i ([^}]+?)}", "_$1_"),
+            format("italic", "\\{@italic ([^}]+)}", "_$1_"),
+            format("indentFirst", "\\{@indentFirst ([^}]+?)}", "$1"),
+            format("indentSubsequent", "\\{@indentSubsequent ([^}]+?)}", "$1"),
+            // second pass (nested references)
+            tags(linkTags, (s, text, nested) -> s.linkifyAll(text)),
+            // note pattern often wraps others. Do this one last.
+            replaceAll(JsonTextReplacement.notePattern, "note")
+                    .with((s, m, nested) -> s.replaceNote(m, nested)));
+
+    private static final TagDispatcher<JsonTextReplacement> dispatcher = new TagDispatcher<>(replacements,
+            (s, e, input) -> s.tui().errorf(e, "Unable to parse string from %s: %s", s.getSources().getKey(), input));
+
+    private TagReplacements() {
+    }
+
+    /**
+     * Apply tag replacements to text (usually a single {@code {@tag ...}} span).
+     *
+     * @param source the converter (for linking, lookups, and logging)
+     * @param input the text to replace
+     * @param nested true if this span is nested inside another
+     * @return text with tags replaced
+     */
+    static String replace(JsonTextReplacement source, String input, boolean nested) {
+        String result = input;
+        if (result.contains(PROMPT)) {
+            result = result
+                    .replace("#$prompt_number:title=Enter Alert Level$#", "Alert Level")
+                    .replace("#$prompt_number:title=Enter Charisma Modifier$#", "Charisma modifier")
+                    .replace("#$prompt_number:title=Enter Lifestyle Modifier$#", "Charisma modifier")
+                    .replace("#$prompt_number:title=Enter a Modifier$#", "Modifier")
+                    .replace("#$prompt_number:title=Enter a Modifier,default=10$#", "Modifier (default 10)")
+                    .replaceAll("#\\$prompt_number.*default=(.*)\\$#", "$1");
+        }
+        result = result
+                .replace("{@conditoin", "{@condition")
+                .replace("ffguard", "ff-guard"); // fix typo
+        return dispatcher.replace(source, result, nested);
+    }
+}
@@ -65,6 +65,54 @@ public class ConfiguratorTest {
         });
     }
 
+    @Test
+    public void testConfiguredSources() throws Exception {
+        TtrpgConfig.init(tui, Datasource.tools5e);
+        Configurator test = new Configurator(tui);
+
+        tui.readFile(TestUtils.TEST_RESOURCES.resolve("5e/sources.json"), List.of(), (f, node) -> {
+            test.readConfigIfPresent(node);
+            CompendiumConfig config = TtrpgConfig.getConfig();
+
+            assertThat(config.configuredSources()).isPresent();
+            assertThat(config.configuredSources().get())
+                    .contains("phb", "dmg", "xge", "tce", "wbtw", "mpmm")
+                    .doesNotContain("scag");
+        });
+
+        TtrpgConfig.init(tui, Datasource.tools5e);
+        tui.readFile(TestUtils.TEST_RESOURCES.resolve("sources-from-all.json"), List.of(), (f, node) -> {
+            test.readConfigIfPresent(node);
+            assertThat(TtrpgConfig.getConfig().configuredSources()).isEmpty();
+        });
+    }
+
+    @Test
+    public void testKeyIsIncluded() throws Exception {
+        TtrpgConfig.init(tui, Datasource.tools5e);
+        Configurator test = new Configurator(tui);
+
+        test.readConfigIfPresent(Tui.MAPPER.readTree("""
+                {
+                    "include": [ "race|changeling|mpmm" ],
+                    "exclude": [ "monster|expert|dc" ],
+                    "excludePattern": [ "race|.*|dmg", "monster|.*|mm", ".*|.*|scag" ]
+                }
+                """));
+        CompendiumConfig config = TtrpgConfig.getConfig();
+
+        assertThat(config.keyIsIncluded("race|changeling|mpmm")).contains(true);
+        assertThat(config.keyIsIncluded("monster|expert|dc")).contains(false);
+        assertThat(config.keyIsIncluded("race|aasimar|dmg")).contains(false);
+        assertThat(config.keyIsIncluded("monster|goblin|mm")).contains(false);
+        assertThat(config.keyIsIncluded("item|dagger|scag")).contains(false);
+        assertThat(config.keyIsIncluded("item|dagger|mm")).isEmpty();
+        assertThat(config.keyIsIncluded("race|aasimar|vgm")).isEmpty();
+        // cached decisions are stable
+        assertThat(config.keyIsIncluded("race|aasimar|dmg")).contains(false);
+        assertThat(config.keyIsIncluded("race|aasimar|vgm")).isEmpty();
+    }
+
     @Test
     public void testFromAll() throws Exception {
         TtrpgConfig.init(tui, Datasource.tools5e);
@@ -0,0 +1,80 @@
+package dev.ebullient.convert.io;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import dev.ebullient.convert.TestUtils;
+import dev.ebullient.convert.io.IncrementalState.OutputFile;
+import dev.ebullient.convert.io.MarkdownWriter.FileMap;
+
+public class IncrementalStateTest {
+
+    @Test
+    public void testUnchangedEntries() throws IOException {
+        Path root = TestUtils.PROJECT_PATH.resolve("target/test-incremental");
+        TestUtils.deleteDir(root);
+        Tui tui = new Tui();
+
+        Map<String, String> data = Map.of("spell|a|phb", "A", "spell|b|phb", "B");
+        FileMap fileMap = FileMap.restore("A", "a-phb.md", Path.of("compendium/spells"), false);
+        Files.createDirectories(root.resolve("compendium/spells"));
+        Files.writeString(root.resolve("compendium/spells/a-phb.md"), "# A");
+
+        IncrementalState state = IncrementalState.load(root, "1", tui);
+        assertThat(state.unchanged("spell|a|phb", k -> IncrementalState.hash(data.get(k)))).isNull();
+        state.begin();
+        IncrementalState.dependsOn("spell|a|phb", data.get("spell|a|phb"));
+        IncrementalState.dependsOn("spell|b|phb", data.get("spell|b|phb"));
+        state.end("spell|a|phb", List.of(fileMap), List.of());
+        state.save();
+
+        // Same data: skipped
+        state = IncrementalState.load(root, "1", tui);
+        List<OutputFile> files = state.unchanged("spell|a|phb", k -> IncrementalState.hash(data.get(k)));
+        assertThat(files).hasSize(1);
+        assertThat(files.get(0).fileName()).isEqualTo("a-phb.md");
+        assertThat(files.get(0).rules()).isFalse();
+        assertThat(state.skipped()).isEqualTo(1);
+
+        // Changed dependency (in a later run: hashes are computed once per run)
+        state = IncrementalState.load(root, "1", tui);
+        Map<String, String> changed = Map.of("spell|a|phb", "A", "spell|b|phb", "B2");
+        assertThat(state.unchanged("spell|a|phb", k -> IncrementalState.hash(changed.get(k)))).isNull();
+
+        // Changed fingerprint
+        state = IncrementalState.load(root, "2", tui);
+        assertThat(state.unchanged("spell|a|phb", k -> IncrementalState.hash(data.get(k)))).isNull();
+    }
+
+    @Test
+    public void testUnresolvedDependency() throws IOException {
+        Path root = TestUtils.PROJECT_PATH.resolve("target/test-incremental-unresolved");
+        TestUtils.deleteDir(root);
+        Tui tui = new Tui();
+
+        Map<String, String> data = Map.of("spell|a|phb", "A");
+        IncrementalState state = IncrementalState.load(root, "1", tui);
+        state.begin();
+        assertThat(IncrementalState.isRecording()).isTrue();
+        IncrementalState.dependsOn("spell|a|phb", data.get("spell|a|phb"));
+        IncrementalState.dependsOn("spell|b|phb", (String) null); // link that did not resolve
+        state.end("spell|a|phb", List.of(), List.of());
+        assertThat(IncrementalState.isRecording()).isFalse();
+        state.save();
+
+        state = IncrementalState.load(root, "1", tui);
+        assertThat(state.unchanged("spell|a|phb", k -> IncrementalState.hash(data.get(k)))).isEmpty();
+
+        // The missing entry was added: convert again
+        Map<String, String> added = Map.of("spell|a|phb", "A", "spell|b|phb", "B");
+        state = IncrementalState.load(root, "1", tui);
+        assertThat(state.unchanged("spell|a|phb", k -> IncrementalState.hash(added.get(k)))).isNull();
+    }
+}
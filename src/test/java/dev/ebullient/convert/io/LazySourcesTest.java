@@ -0,0 +1,86 @@
+package dev.ebullient.convert.io;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+import org.junit.jupiter.api.Test;
+
+import dev.ebullient.convert.TestUtils;
+import dev.ebullient.convert.config.CompendiumConfig.Configurator;
+import dev.ebullient.convert.config.ConfiguratorUtil;
+
+public class LazySourcesTest {
+
+    @Test
+    public void testSourcePattern() {
+        Pattern p = Tui.sourcePattern(Set.of("xmm", "xphb"));
+
+        assertThat(p.matcher("{\"name\":\"Goblin\",\"source\":\"XMM\"}").find()).isTrue();
+        assertThat(p.matcher("\"otherSources\": [{ \"source\" : \"xphb\", \"page\": 3 }]").find()).isTrue();
+
+        // Tags and other fields that name the source do not count
+        assertThat(p.matcher("\"entries\":[\"{@creature goblin|XMM}\"]").find()).isFalse();
+        assertThat(p.matcher("\"reprintedAs\":[\"Goblin|XMM\"]").find()).isFalse();
+        assertThat(p.matcher("\"source\":\"XMMA\"").find()).isFalse();
+    }
+
+    @Test
+    public void testReadFilesBySource() throws IOException {
+        Path dir = TestUtils.PROJECT_PATH.resolve("target/test-lazy/bestiary");
+        TestUtils.deleteDir(dir);
+        Files.createDirectories(dir);
+
+        Files.writeString(dir.resolve("index.json"), """
+                { "MM": "bestiary-mm.json", "XMM": "bestiary-xmm.json",
+                  "VGM": "bestiary-vgm.json", "MPMM": "bestiary-mpmm.json" }
+                """);
+        // reprinted in XMM (only mentioned in a tag and a reprint): skipped
+        Files.writeString(dir.resolve("bestiary-mm.json"), """
+                { "monster": [{ "name": "Goblin", "source": "MM",
+                    "reprintedAs": ["Goblin|XMM"], "entries": ["{@creature goblin|XMM}"] }] }
+                """);
+        // included source
+        Files.writeString(dir.resolve("bestiary-xmm.json"), """
+                { "monster": [{ "name": "Goblin", "source": "XMM" },
+                    { "name": "Hobgoblin", "source": "XMM", "_copy": { "name": "Hobgoblin", "source": "MPMM" } }] }
+                """);
+        // has an entry from an included source
+        Files.writeString(dir.resolve("bestiary-vgm.json"), """
+                { "monster": [{ "name": "Kobold", "source": "VGM", "otherSources": [{ "source": "XMM" }] }] }
+                """);
+        // copied from by an included entry
+        Files.writeString(dir.resolve("bestiary-mpmm.json"), """
+                { "monster": [{ "name": "Hobgoblin", "source": "MPMM" }] }
+                """);
+        // not listed in the manifest: always read
+        Files.writeString(dir.resolve("bestiary-extra.json"), """
+                { "monster": [{ "name": "Extra", "source": "ABC" }] }
+                """);
+
+        List<String> all = readDirectory(dir, false, false);
+        assertThat(all).hasSize(5);
+
+        List<String> expected = all.stream().filter(f -> !f.equals("bestiary-mm.json")).toList();
+        assertThat(readDirectory(dir, true, false)).containsExactlyElementsOf(expected);
+        assertThat(readDirectory(dir, true, true)).containsExactlyElementsOf(expected);
+    }
+
+    List<String> readDirectory(Path dir, boolean lazySources, boolean parallel) {
+        Tui tui = new Tui();
+        tui.setLazySources(lazySources);
+        tui.setParallel(parallel);
+        ConfiguratorUtil.createNewConfig(tui);
+        new Configurator(tui).allowSource("XMM");
+
+        List<String> read = new ArrayList<>();
+        assertThat(tui.readDirectory("bestiary/", dir, (name, node) -> read.add(name))).isTrue();
+        return read;
+    }
+}
@@ -0,0 +1,62 @@
+package dev.ebullient.convert.io;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+
+import dev.ebullient.convert.TestUtils;
+import dev.ebullient.convert.io.MarkdownWriter.FileMap;
+
+public class MarkdownWriterTest {
+
+    @Test
+    public void testWriteIfChanged() throws IOException {
+        Path root = TestUtils.PROJECT_PATH.resolve("target/test-writer");
+        TestUtils.deleteDir(root);
+
+        Tui tui = new Tui();
+        tui.setWriteIfChanged(true);
+        MarkdownWriter writer = new MarkdownWriter(root, null, tui);
+
+        FileMap fileMap = new FileMap("Note", "note", Path.of("notes"), false);
+        writer.writeFile(fileMap, "# Note");
+        writer.writeFile(fileMap, "# Note");
+        assertThat(writer.written.sum()).isEqualTo(1);
+        assertThat(writer.unchanged.sum()).isEqualTo(1);
+
+        writer.writeFile(fileMap, "# Changed note");
+        assertThat(writer.written.sum()).isEqualTo(2);
+        assertThat(Files.readString(root.resolve("notes/note.md"))).isEqualTo("# Changed note");
+    }
+
+    @Test
+    public void testPrune() throws IOException {
+        Path root = TestUtils.PROJECT_PATH.resolve("target/test-prune");
+        TestUtils.deleteDir(root);
+
+        Tui tui = new Tui();
+        tui.setPrune(true);
+        MarkdownWriter writer = new MarkdownWriter(root, null, tui);
+        writer.writeFile(new FileMap("A", "a", Path.of("notes"), false), "# A");
+        writer.writeFile(new FileMap("B", "b", Path.of("notes"), false), "# B");
+        writer.writeFile(new FileMap("C", "c", Path.of("notes/other"), false), "# C");
+        writer.writeFile(new FileMap("D", "d", Path.of("notes"), false), "# D");
+        writer.writeManifest();
+
+        Files.writeString(root.resolve("notes/d.md"), "# D, edited");
+
+        writer = new MarkdownWriter(root, null, tui);
+        writer.writeFile(new FileMap("A", "a", Path.of("notes"), false), "# A");
+        writer.writeManifest();
+
+        assertThat(root.resolve("notes/a.md")).exists();
+        assertThat(root.resolve("notes/b.md")).doesNotExist();
+        assertThat(root.resolve("notes/other")).doesNotExist();
+        assertThat(root.resolve("notes/d.md")).exists(); // modified: kept
+        assertThat(writer.manifest.removed.sum()).isEqualTo(2);
+    }
+}
@@ -0,0 +1,46 @@
+package dev.ebullient.convert.io;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+public class NoteContentWriterTest {
+
+    @Test
+    public void testStripsCommentsAndTrims() throws IOException {
+        assertThat(write("\n\n%%-- comment --%%\n# Title\n%%-- another --%%\ntext %%-- inline --%%\n\n \n", 3))
+                .isEqualTo("# Title\ntext");
+        assertThat(write("  \n\t ", 1)).isEmpty();
+        assertThat(write("%%-- no newline --%%", 5)).isEqualTo("%%-- no newline --%%");
+    }
+
+    @Test
+    public void testMatchesReplaceAndTrim() throws IOException {
+        String[] parts = { "%%-- ", " --%%", "\n", " ", "\t", "text", "%%", "--", "\r", "# H" };
+        Random random = new Random(7);
+        for (int i = 0; i < 2000; i++) {
+            StringBuilder sb = new StringBuilder();
+            int n = random.nextInt(20);
+            for (int j = 0; j < n; j++) {
+                sb.append(parts[random.nextInt(parts.length)]);
+            }
+            String text = sb.toString();
+            String expected = text.replaceAll("%%-- .*? --%%\\n", "").trim();
+            assertThat(write(text, 1 + random.nextInt(8))).as(text).isEqualTo(expected);
+        }
+    }
+
+    String write(String text, int chunkSize) throws IOException {
+        StringWriter result = new StringWriter();
+        try (NoteContentWriter out = new NoteContentWriter(result)) {
+            for (int i = 0; i < text.length(); i += chunkSize) {
+                out.write(text, i, Math.min(chunkSize, text.length() - i));
+            }
+        }
+        return result.toString();
+    }
+}
@@ -0,0 +1,126 @@
+package dev.ebullient.convert.io;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import dev.ebullient.convert.TestUtils;
+import dev.ebullient.convert.config.TtrpgConfig.Fix;
+
+public class ParsedDataCacheTest {
+
+    @Test
+    public void testCacheHitAndMiss() throws IOException {
+        Path root = TestUtils.PROJECT_PATH.resolve("target/test-cache");
+        TestUtils.deleteDir(root);
+        Path cacheDir = root.resolve("cache");
+        cacheDir.toFile().mkdirs();
+
+        Path input = root.resolve("input.json");
+        Files.writeString(input, "{ \"monster\": [ { \"name\": \"Goblin\", \"cr\": \"1/4\", \"hp\": 7 } ] }");
+
+        Fix fix = new Fix();
+        fix.match = "Goblin";
+        fix.replace = "Hobgoblin";
+
+        AtomicInteger parsed = new AtomicInteger();
+        ParsedDataCache cache = new ParsedDataCache(cacheDir, new Tui());
+        ParsedDataCache.Parser parser = (contents, fixes) -> {
+            parsed.incrementAndGet();
+            String text = new String(contents);
+            for (Fix f : fixes) {
+                text = f.apply(text);
+            }
+            return Tui.MAPPER.readTree(text);
+        };
+
+        JsonNode first = cache.readTree(input, List.of(fix), parser);
+        JsonNode second = cache.readTree(input, List.of(fix), parser);
+        assertThat(parsed.get()).isEqualTo(1);
+        assertThat(second).isEqualTo(first);
+        assertThat(second.at("/monster/0/name").asText()).isEqualTo("Hobgoblin");
+
+        // different fixes: different entry
+        JsonNode unfixed = cache.readTree(input, List.of(), parser);
+        assertThat(parsed.get()).isEqualTo(2);
+        assertThat(unfixed.at("/monster/0/name").asText()).isEqualTo("Goblin");
+
+        // changed contents: different entry
+        Files.writeString(input, "{ \"monster\": [ { \"name\": \"Bugbear\" } ] }");
+        JsonNode changed = cache.readTree(input, List.of(), parser);
+        assertThat(parsed.get()).isEqualTo(3);
+        assertThat(changed.at("/monster/0/name").asText()).isEqualTo("Bugbear");
+    }
+
+    @Test
+    public void testPrune() throws IOException {
+        Path cacheDir = TestUtils.PROJECT_PATH.resolve("target/test-cache-prune");
+        TestUtils.deleteDir(cacheDir);
+        cacheDir.toFile().mkdirs();
+
+        Instant old = Instant.now().minus(ParsedDataCache.MAX_AGE).minusSeconds(60);
+        Path stale = Files.writeString(cacheDir.resolve("stale" + ParsedDataCache.SUFFIX), "");
+        Path staleTmp = Files.writeString(cacheDir.resolve("entry1" + ParsedDataCache.TMP_SUFFIX), "");
+        Path other = Files.writeString(cacheDir.resolve("README.md"), "");
+        Path recent = Files.writeString(cacheDir.resolve("recent" + ParsedDataCache.SUFFIX), "");
+        for (Path p : List.of(stale, staleTmp, other)) {
+            Files.setLastModifiedTime(p, FileTime.from(old));
+        }
+
+        // opening the cache removes unused entries
+        new ParsedDataCache(cacheDir, new Tui());
+        assertThat(stale).doesNotExist();
+        assertThat(staleTmp).doesNotExist();
+        assertThat(other).exists();
+        assertThat(recent).exists();
+
+        // reading an entry marks it as used
+        Path input = Files.writeString(cacheDir.resolve("input.json"), "{ \"name\": \"Goblin\" }");
+        ParsedDataCache cache = new ParsedDataCache(cacheDir, new Tui());
+        ParsedDataCache.Parser parser = (contents, fixes) -> Tui.MAPPER.readTree(contents);
+        cache.readTree(input, List.of(), parser);
+
+        Path entry = cacheDir.resolve(ParsedDataCache.cacheKey(Files.readAllBytes(input), List.of())
+                + ParsedDataCache.SUFFIX);
+        Files.setLastModifiedTime(entry, FileTime.from(old));
+        cache.readTree(input, List.of(), parser);
+        assertThat(cache.prune(Instant.now().minus(ParsedDataCache.MAX_AGE))).isZero();
+        assertThat(entry).exists();
+    }
+
+    @Test
+    public void testMalformedInput() throws IOException {
+        Path cacheDir = TestUtils.PROJECT_PATH.resolve("target/test-cache-malformed");
+        TestUtils.deleteDir(cacheDir);
+        cacheDir.toFile().mkdirs();
+
+        Fix fix = new Fix();
+        fix.match = "Goblin";
+        fix.replace = "Hobgoblin";
+
+        // Latin-1 encoded text is not valid UTF-8
+        Path input = cacheDir.resolve("input.json");
+        Files.write(input, "{ \"name\": \"Goblin Café\" }".getBytes(StandardCharsets.ISO_8859_1));
+
+        // reported as an unreadable file (as without the cache), and not cached
+        Tui tui = new Tui();
+        tui.setDataCache(cacheDir);
+        assertThat(tui.readFile(input, List.of(fix), (name, node) -> {
+        })).isFalse();
+        try (Stream<Path> files = Files.list(cacheDir)) {
+            assertThat(files.map(p -> p.getFileName().toString())).containsExactly("input.json");
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package dev.ebullient.convert.io;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import dev.ebullient.convert.TestUtils;
+
+public class SlugifierTest {
+    final Slugifier slugifier = new Slugifier();
+
+    @Test
+    public void testSameAsSlugify() {
+        for (String s : List.of("", " ", "-", "--a--", "_", "Acid Splash", "  Mage Hand  ",
+                "Bigby's Hand", "\"Quoted\", and listed", "Potion of Healing (Greater)",
+                "Dragon, Red; Adult", "a_-", "Dungeon Master's Guide 2024", "\tTab\nline",
+                "Ædrin Élan", "Nüwa", "Ølgård", "Éowyn's Ring", "鬼", "")) {
+            assertThat(slugifier.slugify(s)).as(s).isEqualTo(slugifier.slugifyUncached(s));
+        }
+
+        Random random = new Random(5);
+        for (int i = 0; i < 20_000; i++) {
+            char[] chars = new char[random.nextInt(12)];
+            for (int j = 0; j < chars.length; j++) {
+                chars[j] = (char) random.nextInt(128);
+            }
+            String s = new String(chars);
+            assertThat(slugifier.asciiSlug(s)).as(s).isEqualTo(slugifier.slugifyUncached(s));
+        }
+    }
+
+    @Test
+    public void testDataNames() throws IOException {
+        if (!TestUtils.PATH_5E_TOOLS_DATA.toFile().exists()) {
+            return;
+        }
+        List<String> names = new ArrayList<>();
+        try (Stream<Path> files = Files.walk(TestUtils.PATH_5E_TOOLS_DATA)) {
+            for (Path p : files.filter(p -> p.toString().endsWith(".json")).toList()) {
+                collectNames(Tui.MAPPER.readTree(p.toFile()), names);
+            }
+        }
+
+        long start = System.nanoTime();
+        List<String> expected = names.stream().map(slugifier::slugifyUncached).toList();
+        long slugify = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        List<String> actual = names.stream().map(slugifier::slugify).toList();
+        long cold = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        names.forEach(slugifier::slugify);
+        long warm = System.nanoTime() - start;
+
+        assertThat(actual).isEqualTo(expected);
+        System.out.printf("Slugs for %d names: Slugify %d ms, cached %d ms (cold), %d ms (warm)%n",
+                names.size(),
+                TimeUnit.NANOSECONDS.toMillis(slugify),
+                TimeUnit.NANOSECONDS.toMillis(cold),
+                TimeUnit.NANOSECONDS.toMillis(warm));
+    }
+
+    private void collectNames(JsonNode node, List<String> names) {
+        if (node.isObject()) {
+            JsonNode name = node.get("name");
+            if (name != null && name.isTextual()) {
+                names.add(name.asText());
+            }
+        }
+        node.forEach(child -> collectNames(child, names));
+    }
+}
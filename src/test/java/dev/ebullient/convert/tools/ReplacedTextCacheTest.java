@@ -0,0 +1,39 @@
+package dev.ebullient.convert.tools;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+public class ReplacedTextCacheTest {
+
+    @Test
+    public void testHitsAndEviction() {
+        AtomicInteger renders = new AtomicInteger();
+        ReplacedTextCache cache = new ReplacedTextCache(2);
+
+        assertThat(cache.computeIfAbsent("a", () -> "A" + renders.incrementAndGet())).isEqualTo("A1");
+        assertThat(cache.computeIfAbsent("a", () -> "A" + renders.incrementAndGet())).isEqualTo("A1");
+        assertThat(cache.hits()).isEqualTo(1);
+        assertThat(cache.misses()).isEqualTo(1);
+
+        cache.computeIfAbsent("b", () -> "B" + renders.incrementAndGet());
+        cache.computeIfAbsent("a", () -> "A" + renders.incrementAndGet()); // a is most recently used
+        cache.computeIfAbsent("c", () -> "C" + renders.incrementAndGet()); // evicts b
+
+        assertThat(cache.computeIfAbsent("a", () -> "A" + renders.incrementAndGet())).isEqualTo("A1");
+        assertThat(cache.computeIfAbsent("b", () -> "B" + renders.incrementAndGet())).isEqualTo("B4");
+    }
+
+    @Test
+    public void testDisabled() {
+        AtomicInteger renders = new AtomicInteger();
+        ReplacedTextCache cache = new ReplacedTextCache(0);
+
+        assertThat(cache.enabled()).isFalse();
+        assertThat(cache.computeIfAbsent("a", () -> "A" + renders.incrementAndGet())).isEqualTo("A1");
+        assertThat(cache.computeIfAbsent("a", () -> "A" + renders.incrementAndGet())).isEqualTo("A2");
+        assertThat(cache.hits()).isZero();
+    }
+}
@@ -577,6 +577,60 @@ public class CommonDataTests {
         }
     }
 
+    /**
+     * Convert everything twice, one entry at a time and then in parallel:
+     * both output trees should be identical.
+     */
+    public void testParallelOutput(Path outputPath) throws IOException {
+        tui.setOutputPath(outputPath);
+
+        if (dataPresent) {
+            Path serialDir = outputPath.resolve("parallel-check/serial");
+            Path parallelDir = outputPath.resolve("parallel-check/parallel");
+
+            try {
+                tui.setParallel(false);
+                writeAll(serialDir);
+                tui.setParallel(true);
+                writeAll(parallelDir);
+            } finally {
+                tui.setParallel(false);
+            }
+
+            List<Path> serialFiles = relativeFiles(serialDir);
+            assertThat(relativeFiles(parallelDir)).containsExactlyElementsOf(serialFiles);
+
+            List<String> different = new ArrayList<>();
+            for (Path p : serialFiles) {
+                if (Files.mismatch(serialDir.resolve(p), parallelDir.resolve(p)) != -1) {
+                    different.add(p.toString());
+                }
+            }
+            assertThat(different).as("Files that differ between serial and parallel conversion").isEmpty();
+        }
+    }
+
+    private void writeAll(Path outputDir) {
+        TestUtils.deleteDir(outputDir);
+        // Background tables collect rows from all converted entries
+        Json2QuteBackground.traits.clear();
+        Json2QuteBackground.ideals.clear();
+        Json2QuteBackground.bonds.clear();
+        Json2QuteBackground.flaws.clear();
+
+        MarkdownWriter writer = new MarkdownWriter(outputDir, templates, tui);
+        index.markdownConverter(writer).writeAll();
+    }
+
+    private static List<Path> relativeFiles(Path dir) throws IOException {
+        try (Stream<Path> files = Files.walk(dir)) {
+            return files.filter(Files::isRegularFile)
+                    .map(dir::relativize)
+                    .sorted()
+                    .toList();
+        }
+    }
+
     public Path compendiumFilePath() {
         return index.compendiumFilePath();
     }
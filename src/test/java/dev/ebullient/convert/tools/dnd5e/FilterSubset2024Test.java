@@ -49,6 +49,11 @@ public class FilterSubset2024Test {
         commonTests.afterEach();
     }
 
+    @Test
+    public void testParallelOutput() throws Exception {
+        commonTests.testParallelOutput(outputPath);
+    }
+
     @Test
     public void testKeyIndex() throws Exception {
         commonTests.testKeyIndex(outputPath);
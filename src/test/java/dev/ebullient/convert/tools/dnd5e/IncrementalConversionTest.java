@@ -0,0 +1,177 @@
+package dev.ebullient.convert.tools.dnd5e;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import dev.ebullient.convert.TestUtils;
+import dev.ebullient.convert.config.CompendiumConfig.Configurator;
+import dev.ebullient.convert.config.Datasource;
+import dev.ebullient.convert.config.TtrpgConfig;
+import dev.ebullient.convert.io.MarkdownWriter;
+import dev.ebullient.convert.io.Templates;
+import dev.ebullient.convert.io.Tui;
+import io.quarkus.arc.Arc;
+import io.quarkus.test.junit.QuarkusTest;
+
+/**
+ * Convert a small fixture twice with {@code --incremental}: the second run should skip
+ * unchanged entries, convert entries with a changed dependency, and produce
+ * the same files as a full run.
+ */
+@QuarkusTest
+public class IncrementalConversionTest {
+    static final Path FIXTURE = TestUtils.TEST_RESOURCES.resolve("5e/conversion-fixture.json");
+    static final Path OUTPUT = TestUtils.OUTPUT_ROOT_5E.resolve("test-incremental");
+    static final FileTime EARLIER = FileTime.from(Instant.now().minusSeconds(3600));
+    // notes for (tracked) entries; directory index notes are written on every run
+    static final List<String> ENTRY_NOTES = List.of(
+            "compendium/bestiary/humanoid/fixture-goblin.md",
+            "compendium/feats/fixture-devotion.md",
+            "compendium/items/fixture-blade.md",
+            "compendium/spells/fixture-bolt.md",
+            "compendium/spells/fixture-ward.md");
+
+    Tui tui;
+    Templates templates;
+
+    @BeforeEach
+    public void setup() {
+        tui = Arc.container().instance(Tui.class).get();
+        tui.init(null, false, false);
+        templates = Arc.container().instance(Templates.class).get();
+        tui.setTemplates(templates);
+    }
+
+    @AfterEach
+    public void cleanup() {
+        tui.setIncremental(false);
+        TestUtils.cleanupReferences();
+    }
+
+    @Test
+    public void testUnchangedData() throws IOException {
+        JsonNode data = Tui.MAPPER.readTree(FIXTURE.toFile());
+        Path fullDir = convert(OUTPUT.resolve("unchanged-full"), data, false, false);
+        Path incrementalDir = convert(OUTPUT.resolve("unchanged-incremental"), data, false, true);
+
+        setModifiedTime(incrementalDir, EARLIER);
+        convert(incrementalDir, data, true, true);
+
+        assertSameFiles(incrementalDir, fullDir);
+        assertThat(rewritten(incrementalDir))
+                .as("No entry is converted again")
+                .isEmpty();
+    }
+
+    @Test
+    public void testChangedDependency() throws IOException {
+        JsonNode data = Tui.MAPPER.readTree(FIXTURE.toFile());
+        Path incrementalDir = convert(OUTPUT.resolve("changed-incremental"), data, false, true);
+        setModifiedTime(incrementalDir, EARLIER);
+
+        // Change the spell (linked from the monster and the other spell)
+        // and the backgrounds (linked by name from the feat prerequisite; one is excluded)
+        JsonNode changed = data.deepCopy();
+        ((ObjectNode) changed.at("/spell/0")).putArray("entries").add("A bolt of light strikes one creature.");
+        ((ObjectNode) changed.at("/background/1")).putArray("entries").add("You studied.");
+        ((ObjectNode) changed.at("/background/2")).putArray("entries").add("You lived alone.");
+
+        convert(incrementalDir, changed, true, true);
+        Path fullDir = convert(OUTPUT.resolve("changed-full"), changed, false, false);
+
+        assertSameFiles(incrementalDir, fullDir);
+        assertThat(rewritten(incrementalDir))
+                .as("Changed entries, and entries that use them, are converted again")
+                .containsExactly(
+                        "compendium/bestiary/humanoid/fixture-goblin.md",
+                        "compendium/feats/fixture-devotion.md",
+                        "compendium/spells/fixture-bolt.md",
+                        "compendium/spells/fixture-ward.md");
+    }
+
+    Path convert(Path outputDir, JsonNode data, boolean keepOutput, boolean incremental) {
+        if (!keepOutput) {
+            // includes state from a previous incremental run
+            TestUtils.deleteDir(outputDir);
+        }
+        tui.setIncremental(incremental);
+        tui.setOutputPath(outputDir);
+
+        TtrpgConfig.init(tui, Datasource.tools5e);
+        new Configurator(tui).allowSource("PHB");
+        Tools5eIndex index = new Tools5eIndex(TtrpgConfig.getConfig());
+        Tools5eLinkifier.instance().reset();
+        try {
+            index.importTree("conversion-fixture.json", data.deepCopy());
+            index.prepare();
+            templates.setCustomTemplates(TtrpgConfig.getConfig());
+
+            MarkdownWriter writer = new MarkdownWriter(outputDir, templates, tui);
+            index.markdownConverter(writer).writeAll();
+        } finally {
+            index.cleanup();
+            Json2QuteBackground.traits.clear();
+            Json2QuteBackground.ideals.clear();
+            Json2QuteBackground.bonds.clear();
+            Json2QuteBackground.flaws.clear();
+        }
+        return outputDir;
+    }
+
+    static List<Path> markdownFiles(Path dir) throws IOException {
+        try (Stream<Path> files = Files.walk(dir)) {
+            return files.filter(p -> p.toString().endsWith(".md"))
+                    .map(dir::relativize)
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    static void assertSameFiles(Path actualDir, Path expectedDir) throws IOException {
+        List<Path> expected = markdownFiles(expectedDir);
+        assertThat(expected).isNotEmpty();
+        assertThat(markdownFiles(actualDir)).containsExactlyElementsOf(expected);
+
+        List<String> different = new ArrayList<>();
+        for (Path p : expected) {
+            if (Files.mismatch(actualDir.resolve(p), expectedDir.resolve(p)) != -1) {
+                different.add(p.toString());
+            }
+        }
+        assertThat(different).as("Files that differ from a full conversion").isEmpty();
+    }
+
+    static void setModifiedTime(Path dir, FileTime time) throws IOException {
+        for (Path p : markdownFiles(dir)) {
+            Files.setLastModifiedTime(dir.resolve(p), time);
+        }
+    }
+
+    /** Entry notes written since {@link #setModifiedTime} */
+    static List<String> rewritten(Path dir) throws IOException {
+        List<String> result = new ArrayList<>();
+        for (String note : ENTRY_NOTES) {
+            Path p = dir.resolve(note);
+            assertThat(p).exists();
+            if (Files.getLastModifiedTime(p).compareTo(EARLIER) > 0) {
+                result.add(note);
+            }
+        }
+        return result;
+    }
+}
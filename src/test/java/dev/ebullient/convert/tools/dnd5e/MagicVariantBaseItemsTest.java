@@ -0,0 +1,88 @@
+package dev.ebullient.convert.tools.dnd5e;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+class MagicVariantBaseItemsTest {
+    static final JsonNodeFactory json = JsonNodeFactory.instance;
+    static final List<String> TYPES = List.of("M", "R", "LA", "MA", "HA", "S", "AF|DMG");
+    static final List<String> PROPERTIES = List.of("V", "F", "L", "T", "2H", "H");
+    static final List<String> DAMAGE = List.of("S", "P", "B");
+
+    final Random random = new Random(21);
+
+    @Test
+    void testCandidatesMatchFullScan() {
+        List<JsonNode> items = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            items.add(randomItem());
+        }
+        MagicVariant.BaseItems baseItems = new MagicVariant.BaseItems(items);
+
+        for (int i = 0; i < 500; i++) {
+            ObjectNode variant = json.objectNode();
+            ArrayNode requires = variant.putArray("requires");
+            for (int r = 0; r <= random.nextInt(3); r++) {
+                requires.add(randomRequirement());
+            }
+            List<JsonNode> expected = items.stream()
+                    .filter(b -> MagicVariant.INSTANCE.hasRequiredProperty(b, variant))
+                    .toList();
+            List<JsonNode> actual = baseItems.candidates(requires).stream()
+                    .filter(b -> MagicVariant.INSTANCE.hasRequiredProperty(b, variant))
+                    .toList();
+            assertThat(actual).as(requires.toString()).containsExactlyElementsOf(expected);
+        }
+        assertThat(baseItems.candidates(null)).isSameAs(items);
+    }
+
+    ObjectNode randomItem() {
+        ObjectNode item = json.objectNode();
+        item.put("type", pick(TYPES));
+        if (random.nextBoolean()) {
+            item.put(random.nextBoolean() ? "weapon" : "armor", true);
+        }
+        if (random.nextBoolean()) {
+            item.put("dmgType", pick(DAMAGE));
+        }
+        if (random.nextBoolean()) {
+            ArrayNode property = item.putArray("property");
+            for (int p = 0; p < random.nextInt(3); p++) {
+                property.add(pick(PROPERTIES));
+            }
+        }
+        if (random.nextInt(4) == 0) {
+            item.putObject("customProperties").put("net", random.nextBoolean());
+        }
+        return item;
+    }
+
+    JsonNode randomRequirement() {
+        ObjectNode req = json.objectNode();
+        for (int i = 0; i < random.nextInt(3); i++) {
+            switch (random.nextInt(6)) {
+                case 0 -> req.put("type", pick(TYPES));
+                case 1 -> req.put(random.nextBoolean() ? "weapon" : "armor", true);
+                case 2 -> req.put("property", pick(PROPERTIES));
+                case 3 -> req.putArray("dmgType").add(pick(DAMAGE)).add(pick(DAMAGE));
+                case 4 -> req.putObject("customProperties").put("net", true);
+                default -> req.putNull("dmgType");
+            }
+        }
+        return req;
+    }
+
+    String pick(List<String> values) {
+        return values.get(random.nextInt(values.size()));
+    }
+}
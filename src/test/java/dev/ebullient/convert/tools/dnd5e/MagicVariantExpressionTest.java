@@ -0,0 +1,53 @@
+package dev.ebullient.convert.tools.dnd5e;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.ezylang.evalex.Expression;
+
+import dev.ebullient.convert.tools.dnd5e.MagicVariant.CompiledExpression;
+
+class MagicVariantExpressionTest {
+
+    @Test
+    void testBoundSameAsSubstituted() throws Exception {
+        List<String> expressions = List.of(
+                "[[baseitem.value]] + 100",
+                "[[baseitem.value]]*2",
+                "([[baseitem.value]] + 50000) / 2",
+                "[[baseItem.weight]] * 1.5 + [[item.weight]]",
+                "ROUND([[baseitem.value]] / 3, 0)",
+                "1000");
+        List<List<String>> values = List.of(List.of("1500", "0.25"), List.of("0", "12.5"), List.of("7", "3"));
+
+        for (String text : expressions) {
+            CompiledExpression compiled = CompiledExpression.compile(text);
+            assertThat(compiled.parsed()).as(text).isNotNull();
+            for (List<String> v : values) {
+                List<String> used = v.subList(0, compiled.placeholders().size());
+                Expression bound = compiled.bind(used);
+                assertThat(bound).as(text).isNotNull();
+                assertThat(bound.evaluate().getNumberValue())
+                        .as(text + " " + used)
+                        .isEqualTo(new Expression(MagicVariant.substitute(text, used)).evaluate().getNumberValue());
+            }
+        }
+    }
+
+    @Test
+    void testSubstitutedWhenNotBindable() {
+        // substituted values would run into adjacent text
+        assertThat(CompiledExpression.compile("2[[baseitem.value]]").parsed()).isNull();
+        assertThat(CompiledExpression.compile("[[baseitem.value]][[baseitem.weight]]").parsed()).isNull();
+        assertThat(CompiledExpression.compile("[[baseitem.value]].5").parsed()).isNull();
+
+        // missing or non-numeric values
+        CompiledExpression compiled = CompiledExpression.compile("[[baseitem.value]] + 100");
+        assertThat(compiled.bind(List.of(""))).isNull();
+        assertThat(compiled.bind(List.of("-5"))).isNull();
+        assertThat(compiled.bind(List.of("1.0E-5"))).isNull();
+    }
+}
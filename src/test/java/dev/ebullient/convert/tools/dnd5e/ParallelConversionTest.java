@@ -0,0 +1,126 @@
+package dev.ebullient.convert.tools.dnd5e;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import dev.ebullient.convert.TestUtils;
+import dev.ebullient.convert.config.CompendiumConfig.Configurator;
+import dev.ebullient.convert.config.Datasource;
+import dev.ebullient.convert.config.TtrpgConfig;
+import dev.ebullient.convert.io.MarkdownWriter;
+import dev.ebullient.convert.io.Templates;
+import dev.ebullient.convert.io.Tui;
+import io.quarkus.arc.Arc;
+import io.quarkus.test.junit.QuarkusTest;
+
+/**
+ * Convert a small fixture one entry at a time, and then in parallel ({@code --parallel}):
+ * both output trees should be identical.
+ */
+@QuarkusTest
+public class ParallelConversionTest {
+    static final Path OUTPUT = TestUtils.OUTPUT_ROOT_5E.resolve("test-parallel");
+    // copies of fixture entries: enough work to split across threads
+    static final int COPIES = 24;
+
+    Tui tui;
+    Templates templates;
+
+    @BeforeEach
+    public void setup() {
+        tui = Arc.container().instance(Tui.class).get();
+        tui.init(null, false, false);
+        templates = Arc.container().instance(Templates.class).get();
+        tui.setTemplates(templates);
+    }
+
+    @AfterEach
+    public void cleanup() {
+        tui.setParallel(false);
+        TestUtils.cleanupReferences();
+    }
+
+    @Test
+    public void testParallelOutput() throws IOException {
+        JsonNode data = fixture();
+        Path serialDir = convert(OUTPUT.resolve("serial"), data, false);
+        Path parallelDir = convert(OUTPUT.resolve("parallel"), data, true);
+
+        assertThat(IncrementalConversionTest.markdownFiles(serialDir))
+                .contains(Path.of("compendium/spells/fixture-bolt-" + (COPIES - 1) + ".md"));
+        IncrementalConversionTest.assertSameFiles(parallelDir, serialDir);
+    }
+
+    /**
+     * The conversion fixture, with copies of its spell, monster, and background.
+     * Spells and monsters link to each other.
+     */
+    JsonNode fixture() throws IOException {
+        JsonNode data = Tui.MAPPER.readTree(IncrementalConversionTest.FIXTURE.toFile());
+        ArrayNode spells = (ArrayNode) data.get("spell");
+        ArrayNode monsters = (ArrayNode) data.get("monster");
+        ArrayNode backgrounds = (ArrayNode) data.get("background");
+        JsonNode spell = spells.get(0);
+        JsonNode monster = monsters.get(0);
+        JsonNode background = backgrounds.get(0);
+
+        for (int i = 0; i < COPIES; i++) {
+            String next = String.valueOf((i + 1) % COPIES);
+
+            ObjectNode spellCopy = spell.deepCopy();
+            spellCopy.put("name", "Fixture Bolt " + i);
+            spellCopy.putArray("entries").add(String.format(
+                    "Like {@spell Fixture Bolt %s|PHB}, but strikes a {@creature Fixture Goblin %s|PHB}.", next, i));
+            spells.add(spellCopy);
+
+            ObjectNode monsterCopy = monster.deepCopy();
+            monsterCopy.put("name", "Fixture Goblin " + i);
+            ((ObjectNode) monsterCopy.at("/trait/0")).putArray("entries").add(String.format(
+                    "The goblin knows {@spell Fixture Bolt %s|PHB} and carries a {@item Fixture Blade|PHB}.", next));
+            monsters.add(monsterCopy);
+
+            ObjectNode backgroundCopy = background.deepCopy();
+            backgroundCopy.put("name", "Fixture Acolyte " + i);
+            ((ArrayNode) backgroundCopy.at("/entries/1/rows/0")).set(1,
+                    Tui.MAPPER.getNodeFactory().textNode("Tradition " + i + ". Traditions must be preserved. (Lawful)"));
+            backgrounds.add(backgroundCopy);
+        }
+        return data;
+    }
+
+    Path convert(Path outputDir, JsonNode data, boolean parallel) {
+        TestUtils.deleteDir(outputDir);
+        tui.setParallel(parallel);
+        tui.setOutputPath(outputDir);
+
+        TtrpgConfig.init(tui, Datasource.tools5e);
+        new Configurator(tui).allowSource("PHB");
+        Tools5eIndex index = new Tools5eIndex(TtrpgConfig.getConfig());
+        Tools5eLinkifier.instance().reset();
+        try {
+            index.importTree("conversion-fixture.json", data.deepCopy());
+            index.prepare();
+            templates.setCustomTemplates(TtrpgConfig.getConfig());
+
+            MarkdownWriter writer = new MarkdownWriter(outputDir, templates, tui);
+            index.markdownConverter(writer).writeAll();
+        } finally {
+            index.cleanup();
+            Json2QuteBackground.traits.clear();
+            Json2QuteBackground.ideals.clear();
+            Json2QuteBackground.bonds.clear();
+            Json2QuteBackground.flaws.clear();
+        }
+        return outputDir;
+    }
+}
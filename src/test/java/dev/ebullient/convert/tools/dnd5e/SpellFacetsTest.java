@@ -0,0 +1,147 @@
+package dev.ebullient.convert.tools.dnd5e;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import dev.ebullient.convert.config.CompendiumConfig;
+import dev.ebullient.convert.config.CompendiumConfig.Configurator;
+import dev.ebullient.convert.config.ConfiguratorUtil;
+import dev.ebullient.convert.io.Tui;
+import dev.ebullient.convert.tools.dnd5e.SpellIndex.FilterConditions;
+import dev.ebullient.convert.tools.dnd5e.SpellIndex.SpellFacets;
+
+public class SpellFacetsTest {
+    static final List<String> FILTERS = List.of(
+            "level=1;2|class=Wizard",
+            "class=Cleric;Druid|school=V",
+            "source=PHB",
+            "source=phb;xphb|level=0",
+            "source=SRD",
+            "source=srd;srd52",
+            "source=basicRules2024|class=Wizard",
+            "spell attack=R|source=phb",
+            "components & miscellaneous=ritual|source=srd52",
+            "level=3|school=D|source=xge");
+
+    Tui tui = new Tui();
+    CompendiumConfig config = ConfiguratorUtil.createNewConfig(tui);
+    Tools5eIndex index = new Tools5eIndex(config);
+
+    @Test
+    void testNoSources() {
+        compareWithScan();
+    }
+
+    @Test
+    void testSourceConfig() {
+        Configurator configurator = new Configurator(tui);
+        configurator.allowSource("PHB");
+        configurator.allowSource("XGE");
+        compareWithScan();
+    }
+
+    @Test
+    void testSrdConfig() {
+        Configurator configurator = new Configurator(tui);
+        configurator.allowSource("srd");
+        configurator.allowSource("srd52");
+        compareWithScan();
+    }
+
+    @Test
+    void testAllSources() {
+        new Configurator(tui).allowSource("*");
+        compareWithScan();
+    }
+
+    void compareWithScan() {
+        index.prepare();
+        List<SpellEntry> spells = List.of(
+                spell("Magic Missile", "PHB", "1", "V", "wizard", true, false, null),
+                spell("Fire Bolt", "PHB", "0", "V", "wizard", false, false, "r"),
+                spell("Fire Bolt", "XPHB", "0", "V", "wizard", false, true, "r"),
+                spell("Cure Wounds", "PHB", "1", "A", "cleric", true, false, null),
+                spell("Cure Wounds", "XPHB", "1", "A", "druid", false, true, null),
+                spell("Detect Magic", "XPHB", "1", "D", "wizard", false, true, null),
+                spell("Spirit Shroud", "TCE", "3", "N", "cleric", false, false, null),
+                spell("Tiny Servant", "XGE", "3", "D", "wizard", false, false, null),
+                spell("Guidance", "PHB", "0", "D", "druid", true, false, null));
+
+        SpellFacets facets = new SpellFacets(spells);
+        for (String filter : FILTERS) {
+            FilterConditions conditions = conditions(filter);
+            assertThat(facets.matchAll(conditions))
+                    .as(filter)
+                    .containsExactlyElementsOf(scan(spells, conditions));
+        }
+    }
+
+    SpellEntry spell(String name, String source, String level, String school, String className,
+            boolean srd, boolean srd52, String spellAttack) {
+        ObjectNode node = Tui.MAPPER.createObjectNode()
+                .put("name", name)
+                .put("source", source)
+                .put("level", Integer.parseInt(level))
+                .put("school", school);
+        if (srd) {
+            node.put("srd", true);
+        }
+        if (srd52) {
+            node.put("srd52", true);
+            node.put("basicRules2024", true);
+        }
+        if (spellAttack != null) {
+            node.putArray("spellAttack").add(spellAttack.toUpperCase());
+        }
+        if ("1".equals(level) && "D".equals(school)) {
+            node.putObject("meta").put("ritual", true);
+        }
+        String key = Tools5eIndexType.spell.createKey(node);
+        Tools5eSources.constructSources(key, node);
+
+        SpellEntry entry = new SpellEntry(key, node);
+        entry.classes.add(className);
+        return entry;
+    }
+
+    FilterConditions conditions(String filter) {
+        FilterConditions conditions = new FilterConditions();
+        for (String f : filter.split("\\|")) {
+            String[] parts = f.split("=");
+            switch (parts[0]) {
+                case "class" -> conditions.setClasses(parts[1].split(";"));
+                case "level" -> conditions.setLevels(parts[1].split(";"));
+                case "school" -> conditions.setSchools(parts[1].split(";"));
+                case "source" -> conditions.setSources(parts[1].split(";"));
+                case "spell attack" -> conditions.setSpellAttack(parts[1].split(";"));
+                case "components & miscellaneous" -> conditions.setComponentsMisc(parts[1].split(";"));
+                default -> throw new IllegalArgumentException(parts[0]);
+            }
+        }
+        return conditions;
+    }
+
+    /** Test each spell against each condition (how filters were resolved before faceting) */
+    List<SpellEntry> scan(List<SpellEntry> spells, FilterConditions conditions) {
+        List<SpellEntry> result = new ArrayList<>();
+        for (SpellEntry spell : spells) {
+            Tools5eSources spellSources = Tools5eSources.findSources(spell.spellNode);
+            if ((conditions.classes.isEmpty() || conditions.classes.stream().anyMatch(spell::inClassList))
+                    && (conditions.levels.isEmpty() || conditions.levels.contains(spell.level))
+                    && (conditions.schools.isEmpty() || conditions.schools.contains(spell.school.code()))
+                    && (conditions.sources.isEmpty() || spellSources.includedBy(conditions.sources))
+                    && (conditions.spellAttack.isEmpty()
+                            || spell.spellAttack.stream().anyMatch(x -> conditions.spellAttack.contains(x.toUpperCase())))
+                    && (!conditions.componentsMisc.contains("ritual") || spell.ritual)) {
+                result.add(spell);
+            }
+        }
+        return result;
+    }
+}
@@ -332,6 +332,43 @@ public class TextReplacementTest implements JsonSource {
         }
     }
 
+    @Test
+    void testParseStatePerTask() throws Exception {
+        boolean pushed = parseState().push("PHB", 12);
+        try {
+            assertThat(parseState().sourcePageString()).isEqualTo("PHB p. 12");
+
+            config.withParseState(() -> {
+                assertThat(parseState().sourcePageString()).isEmpty();
+                parseState().push("MM", 3);
+                assertThat(parseState().sourcePageString()).isEqualTo("MM p. 3");
+            });
+            assertThat(parseState().sourcePageString()).isEqualTo("PHB p. 12");
+
+            String[] other = new String[1];
+            Thread thread = new Thread(() -> other[0] = parseState().sourcePageString());
+            thread.start();
+            thread.join();
+            assertThat(other[0]).isEmpty();
+        } finally {
+            parseState().pop(pushed);
+        }
+    }
+
+    @Test
+    public void testFormattingTags() {
+        assertThat(this.replaceText("{@b bold} and {@i {@u nested}}, {@strike gone}, {@code x = 1}"))
+                .isEqualTo("**bold** and *_nested_*, ~~gone~~, `x = 1`");
+        assertThat(this.replaceText("{@actSave dex} {@actSaveFail} {@actSaveSuccess} {@recharge 5}, {@recharge}"))
+                .isEqualTo("*Dexterity Saving Throw:* *Failure:* *Success:* (Recharge 5-6), (Recharge 6)");
+        assertThat(this.replaceText("{@dc 15}; {@chance 50|half}; {@book Player's Handbook|PHB}"))
+                .isEqualTo("DC 15; half; \"Player's Handbook\"");
+        assertThat(this.replaceText("{@adventure Lost Mine|LMoP} {@unknown tag}"))
+                .isEqualTo("Lost Mine {@unknown tag}");
+        assertThat(this.replaceText("Before {@note A note {@b here}}"))
+                .isEqualTo("Before > [!note]\n> A note **here**");
+    }
+
     @Test
     public void testHitYourSpellAttack() {
         String s = "{@hitYourSpellAttack} to hit,";
@@ -0,0 +1,35 @@
+package dev.ebullient.convert.tools.dnd5e;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+class Tools5eIndexKeyTest {
+
+    @Test
+    void testParseKey() {
+        Tools5eIndexKey key = Tools5eIndexKey.of("subclass|path of the berserker|barbarian|phb|phb");
+        assertThat(key.type()).isEqualTo(Tools5eIndexType.subclass);
+        assertThat(key.name()).isEqualTo("path of the berserker");
+        assertThat(key.source()).isEqualTo("phb");
+        assertThat(key.key()).isEqualTo("subclass|path of the berserker|barbarian|phb|phb");
+
+        // interned
+        assertThat(Tools5eIndexKey.of("subclass|path of the berserker|barbarian|phb|phb")).isSameAs(key);
+
+        key = Tools5eIndexKey.of("itemproperty|v");
+        assertThat(key.type()).isEqualTo(Tools5eIndexType.itemProperty);
+        assertThat(key.name()).isEqualTo("v");
+        assertThat(key.source()).isEmpty();
+    }
+
+    @Test
+    void testTypeFromKey() {
+        assertThat(Tools5eIndexType.getTypeFromKey("class|barbarian|phb")).isEqualTo(Tools5eIndexType.classtype);
+        assertThat(Tools5eIndexType.getTypeFromKey("race|elf|phb")).isEqualTo(Tools5eIndexType.race);
+        assertThat(Tools5eIndexType.getTypeFromKey("subrace|high|elf|phb|phb")).isEqualTo(Tools5eIndexType.subrace);
+        assertThat(Tools5eIndexType.getTypeFromKey("creature|goblin|mm")).isEqualTo(Tools5eIndexType.monster);
+        assertThat(Tools5eIndexType.getTypeFromKey("unknown|thing|mm")).isNull();
+        assertThat(Tools5eIndexType.fromText("OptionalFeature")).isEqualTo(Tools5eIndexType.optfeature);
+    }
+}
@@ -0,0 +1,74 @@
+package dev.ebullient.convert.tools.dnd5e;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import dev.ebullient.convert.config.CompendiumConfig;
+import dev.ebullient.convert.config.ConfiguratorUtil;
+import dev.ebullient.convert.io.Tui;
+import dev.ebullient.convert.qute.QuteNote;
+import dev.ebullient.convert.tools.Tags;
+import dev.ebullient.convert.tools.dnd5e.Tools5eMarkdownConverter.WritingQueue;
+
+public class WritingQueueTest {
+    Tui tui = new Tui();
+    CompendiumConfig config = ConfiguratorUtil.createNewConfig(tui);
+    Tools5eIndex index = new Tools5eIndex(config);
+
+    @Test
+    void testMergeInOrder() {
+        JsonNode blinded = Tui.MAPPER.createObjectNode().put("name", "Blinded");
+        JsonNode dazed = Tui.MAPPER.createObjectNode().put("name", "Dazed");
+        QuteNote first = new QuteNote("First", null, List.of(), new Tags());
+        QuteNote second = new QuteNote("Second", null, List.of(), new Tags());
+
+        WritingQueue a = queue(Tools5eIndexType.condition, "Conditions", blinded, first);
+        WritingQueue b = queue(Tools5eIndexType.status, "Statuses", dazed, second);
+
+        WritingQueue merged = new WritingQueue();
+        merged.addAll(a);
+        merged.addAll(b);
+        merged.addAll(new WritingQueue());
+
+        assertThat(merged.noteCompendium).containsExactly(first, second);
+        assertThat(merged.combinedDocs).hasSize(1);
+
+        // The first composer is kept, and collects elements from later queues
+        Json2QuteCompose composer = (Json2QuteCompose) merged.combinedDocs.get(Tools5eIndexType.condition);
+        assertThat(composer).isSameAs(a.combinedDocs.get(Tools5eIndexType.condition));
+        assertThat(composer.getName()).isEqualTo("Conditions");
+        assertThat(composer.nodes).containsExactly(blinded, dazed);
+    }
+
+    @Test
+    void testTraitRowsInEntryOrder() {
+        WritingQueue a = new WritingQueue();
+        WritingQueue b = new WritingQueue();
+        Json2QuteBackground.collectRows(b.traitRows,
+                () -> Json2QuteBackground.addRows("bond", List.of("| 1 | Second |")));
+        Json2QuteBackground.collectRows(a.traitRows,
+                () -> Json2QuteBackground.addRows("bond", List.of("| 1 | First |")));
+        assertThat(Json2QuteBackground.bonds).doesNotContain("| 1 | First |", "| 1 | Second |");
+
+        WritingQueue merged = new WritingQueue();
+        merged.addAll(a);
+        merged.addAll(b);
+        assertThat(merged.traitRows.bonds).containsExactly("| 1 | First |", "| 1 | Second |");
+        assertThat(merged.traitRows.traits).isEmpty();
+    }
+
+    WritingQueue queue(Tools5eIndexType type, String title, JsonNode node, QuteNote note) {
+        Json2QuteCompose composer = new Json2QuteCompose(type, index, title);
+        composer.nodes.add(node);
+
+        WritingQueue queue = new WritingQueue();
+        queue.combinedDocs.put(Tools5eIndexType.condition, composer);
+        queue.noteCompendium.add(note);
+        return queue;
+    }
+}